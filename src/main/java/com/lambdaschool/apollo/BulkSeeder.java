@@ -0,0 +1,304 @@
+package com.lambdaschool.apollo;
+
+import com.github.javafaker.Faker;
+import com.lambdaschool.apollo.services.JoinCodeGenerator;
+import com.lambdaschool.apollo.views.QuestionType;
+import com.lambdaschool.apollo.views.TopicFrequency;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * BulkSeeder loads a large synthetic data set for reproducing production scale latency and for load tests.
+ * It only runs when apollo.seed.bulk.enabled=true, after the regular seed data.
+ * <p>
+ * Every row is written through batched JDBC in autocommitted batches. Ids are drawn from hibernate_sequence
+ * in blocks, so they never collide with ids the application or another seeder draws meanwhile.
+ * <p>
+ * Shape of the data:
+ * <ul>
+ * <li>users: apollo.seed.bulk.users users, the first apollo.seed.bulk.owners of them own topics</li>
+ * <li>apollo.seed.bulk.topics-per-owner topics per owner, with a random TopicFrequency and
+ * apollo.seed.bulk.members-per-topic random members</li>
+ * <li>one survey request per frequency period over the last apollo.seed.bulk.history-days days</li>
+ * <li>apollo.seed.bulk.questions-per-request questions per request, the first one a leader question answered by the owner</li>
+ * <li>each member responds to a request with probability apollo.seed.bulk.fill-rate</li>
+ * </ul>
+ */
+@Component
+@ConditionalOnProperty(name = "apollo.seed.bulk.enabled", havingValue = "true")
+public class BulkSeeder implements CommandLineRunner {
+    private static final Logger logger = LoggerFactory.getLogger(BulkSeeder.class);
+
+    private static final String AUDITOR = "bulkseeder";
+
+    private static final int ID_BLOCK = 10_000;
+
+    /**
+     * Draws a block of ids, one NEXTVAL per row. Other sessions drawing at the same time get ids in between,
+     * so a block need not be contiguous, but no id is handed out twice
+     */
+    private static final String POSTGRESQL_ID_BLOCK = "SELECT NEXTVAL('hibernate_sequence') FROM generate_series(1, ?)";
+
+    private static final String H2_ID_BLOCK = "SELECT NEXTVAL('hibernate_sequence') FROM SYSTEM_RANGE(1, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JoinCodeGenerator joinCodeGenerator;
+
+    @Value("${apollo.seed.bulk.users:1000}")
+    private int users;
+
+    @Value("${apollo.seed.bulk.owners:100}")
+    private int owners;
+
+    @Value("${apollo.seed.bulk.topics-per-owner:3}")
+    private int topicsPerOwner;
+
+    @Value("${apollo.seed.bulk.members-per-topic:20}")
+    private int membersPerTopic;
+
+    @Value("${apollo.seed.bulk.history-days:365}")
+    private int historyDays;
+
+    @Value("${apollo.seed.bulk.questions-per-request:3}")
+    private int questionsPerRequest;
+
+    @Value("${apollo.seed.bulk.fill-rate:0.7}")
+    private double fillRate;
+
+    @Value("${apollo.seed.bulk.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${apollo.seed.bulk.random-seed:42}")
+    private long randomSeed;
+
+    @Value("${local.run.db:H2}")
+    private String db;
+
+    private final long[] idBlock = new long[ID_BLOCK];
+    private int idIndex = ID_BLOCK;
+
+    // in foreign key order, see flushAll
+    private Batch userRows;
+    private Batch defaultSurveys;
+    private Batch topics;
+    private Batch requests;
+    private Batch questions;
+    private Batch topicUsers;
+    private Batch answers;
+
+    @Override
+    public void run(String... args) {
+        long started = System.currentTimeMillis();
+        Random random = new Random(randomSeed);
+        Faker faker = new Faker(Locale.US, random);
+
+        userRows = new Batch("INSERT INTO users(userid, username, primaryemail, " + auditColumns() + ") VALUES (?, ?, ?, " + auditValues() + ")");
+        defaultSurveys = new Batch("INSERT INTO surveys(surveyid, topicid, " + auditColumns() + ") VALUES (?, NULL, " + auditValues() + ")");
+        topics = new Batch("INSERT INTO topics(topicid, title, userid, frequency, surveyid, joincode, " + auditColumns() + ") VALUES (?, ?, ?, ?, ?, ?, " + auditValues() + ")");
+        requests = new Batch("INSERT INTO surveys(surveyid, topicid, " + auditColumns() + ") VALUES (?, ?, " + auditValues() + ")");
+        questions = new Batch("INSERT INTO questions(questionid, body, is_leader, type, surveyid, " + auditColumns() + ") VALUES (?, ?, ?, ?, ?, " + auditValues() + ")");
+        topicUsers = new Batch("INSERT INTO topicusers(topicid, userid, " + auditColumns() + ") VALUES (?, ?, " + auditValues() + ")");
+        answers = new Batch("INSERT INTO answers(answerid, body, questionid, userid, surveyid, " + auditColumns() + ") VALUES (?, ?, ?, ?, ?, " + auditValues() + ")");
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        // faker is too slow to call once per answer at this scale, so answers draw from a pool of sentences
+        String[] sentences = new String[1000];
+        for (int i = 0; i < sentences.length; i++) {
+            sentences[i] = faker.lorem().sentence();
+        }
+
+        long[] userIds = new long[users];
+        for (int u = 0; u < users; u++) {
+            userIds[u] = nextId();
+            String username = faker.name().username().toLowerCase() + "." + userIds[u];
+            userRows.add(userIds[u], username, username + "@bulk.local", AUDITOR, now, AUDITOR, now);
+        }
+        flushAll();
+
+        TopicFrequency[] frequencies = TopicFrequency.values();
+        LocalDate today = LocalDate.now();
+        int ownerCount = Math.min(owners, users);
+
+        for (int o = 0; o < ownerCount; o++) {
+            long ownerId = userIds[o];
+            for (int t = 0; t < topicsPerOwner; t++) {
+                long defaultSurveyId = nextId();
+                defaultSurveys.add(defaultSurveyId, AUDITOR, now, AUDITOR, now);
+                addQuestions(defaultSurveyId, faker, now);
+
+                long topicId = nextId();
+                TopicFrequency frequency = frequencies[random.nextInt(frequencies.length)];
+                topics.add(topicId, faker.company().catchPhrase(), ownerId, frequency.ordinal(), defaultSurveyId,
+                        joinCodeGenerator.next(), AUDITOR, now, AUDITOR, now);
+
+                Set<Long> members = new LinkedHashSet<>();
+                int wanted = Math.min(membersPerTopic, users - 1);
+                while (members.size() < wanted) {
+                    long member = userIds[random.nextInt(users)];
+                    if (member != ownerId) {
+                        members.add(member);
+                    }
+                }
+                for (long member : members) {
+                    topicUsers.add(topicId, member, AUDITOR, now, AUDITOR, now);
+                }
+
+                for (LocalDate day : requestDays(frequency, today.minusDays(historyDays), today)) {
+                    Timestamp created = Timestamp.valueOf(day.atTime(9, 0));
+                    long requestId = nextId();
+                    requests.add(requestId, topicId, AUDITOR, created, AUDITOR, created);
+                    long[] questionIds = addQuestions(requestId, faker, created);
+
+                    answers.add(nextId(), sentences[random.nextInt(sentences.length)], questionIds[0], ownerId, requestId, AUDITOR, created, AUDITOR, created);
+                    for (long member : members) {
+                        if (random.nextDouble() < fillRate) {
+                            for (int q = 1; q < questionIds.length; q++) {
+                                answers.add(nextId(), sentences[random.nextInt(sentences.length)], questionIds[q], member, requestId, AUDITOR, created, AUDITOR, created);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        flushAll();
+
+        logger.info("Bulk seed: {} users, {} topics, {} requests, {} questions, {} members, {} answers in {} ms",
+                users, topics.written, requests.written, questions.written, topicUsers.written, answers.written,
+                System.currentTimeMillis() - started);
+    }
+
+    /**
+     * Adds the questions of a survey, the first one being the leader question
+     *
+     * @return The question ids
+     */
+    private long[] addQuestions(long surveyId, Faker faker, Timestamp created) {
+        long[] ids = new long[questionsPerRequest];
+        for (int q = 0; q < questionsPerRequest; q++) {
+            ids[q] = nextId();
+            questions.add(ids[q], faker.lorem().sentence().replace('.', '?'), q == 0, QuestionType.TEXT.ordinal(), surveyId,
+                    AUDITOR, created, AUDITOR, created);
+        }
+        return ids;
+    }
+
+    /**
+     * The days a topic with the given frequency sends a survey request, between from and to
+     */
+    static List<LocalDate> requestDays(TopicFrequency frequency, LocalDate from, LocalDate to) {
+        List<LocalDate> days = new ArrayList<>();
+        switch (frequency) {
+            case DAILY:
+                for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) {
+                    days.add(d);
+                }
+                break;
+            case WEEKLY:
+                for (LocalDate d = from; !d.isAfter(to); d = d.plusWeeks(1)) {
+                    days.add(d);
+                }
+                break;
+            case MONTHLY:
+                for (LocalDate d = from; !d.isAfter(to); d = d.plusMonths(1)) {
+                    days.add(d);
+                }
+                break;
+            default:
+                DayOfWeek weekday = DayOfWeek.valueOf(frequency.name());
+                for (LocalDate d = from.with(TemporalAdjusters.nextOrSame(weekday)); !d.isAfter(to); d = d.plusWeeks(1)) {
+                    days.add(d);
+                }
+        }
+        return days;
+    }
+
+    /**
+     * Hands out ids from a block drawn from hibernate_sequence, drawing the next block when it runs out.
+     * The sequence only ever moves forward, as it does for Hibernate.
+     */
+    private long nextId() {
+        if (idIndex == ID_BLOCK) {
+            String sql = db.equalsIgnoreCase("POSTGRESQL") ? POSTGRESQL_ID_BLOCK : H2_ID_BLOCK;
+            int[] drawn = {0};
+            jdbcTemplate.query(sql, rs -> {
+                idBlock[drawn[0]++] = rs.getLong(1);
+            }, ID_BLOCK);
+            if (drawn[0] != ID_BLOCK) {
+                throw new IllegalStateException("Drew " + drawn[0] + " ids from hibernate_sequence, expected " + ID_BLOCK);
+            }
+            idIndex = 0;
+        }
+        return idBlock[idIndex++];
+    }
+
+    private void flushAll() {
+        if (userRows == null) {
+            return;
+        }
+        userRows.flush();
+        defaultSurveys.flush();
+        topics.flush();
+        requests.flush();
+        questions.flush();
+        topicUsers.flush();
+        answers.flush();
+    }
+
+    private static String auditColumns() {
+        return "created_by, created_date, last_modified_by, last_modified_date";
+    }
+
+    private static String auditValues() {
+        return "?, ?, ?, ?";
+    }
+
+    /**
+     * Rows for one insert statement, sent as a JDBC batch whenever batch-size rows are waiting
+     */
+    private class Batch {
+        private final String sql;
+        private final List<Object[]> rows = new ArrayList<>();
+        private long written;
+
+        Batch(String sql) {
+            this.sql = sql;
+        }
+
+        void add(Object... row) {
+            rows.add(row);
+            if (rows.size() >= batchSize) {
+                flushAll();
+            }
+        }
+
+        void flush() {
+            if (!rows.isEmpty()) {
+                jdbcTemplate.batchUpdate(sql, rows);
+                written += rows.size();
+                rows.clear();
+            }
+        }
+    }
+}
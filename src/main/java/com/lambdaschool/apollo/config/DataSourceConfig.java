@@ -1,15 +1,25 @@
 package com.lambdaschool.apollo.config;
 
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.ExitCodeGenerator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
 import org.springframework.boot.jdbc.DataSourceBuilder;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.core.env.Environment;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 
 import javax.sql.DataSource;
 
@@ -22,14 +32,73 @@ public class DataSourceConfig {
     @Autowired
     private Environment env;
 
+    /**
+     * PgJDBC rewrites a batch of single row inserts into multi row inserts, so JDBC batches reach the server as one statement
+     */
+    @Value("${apollo.datasource.postgresql.rewrite-batched-inserts:true}")
+    private boolean rewriteBatchedInserts;
+
+    /**
+     * Executions of the same prepared statement on a connection before PgJDBC switches it to a server side prepared statement
+     */
+    @Value("${apollo.datasource.postgresql.prepare-threshold:3}")
+    private int prepareThreshold;
+
+    /**
+     * Prepared statements PgJDBC keeps per connection, and the memory they may use
+     */
+    @Value("${apollo.datasource.postgresql.prepared-statement-cache-queries:256}")
+    private int preparedStatementCacheQueries;
+
+    @Value("${apollo.datasource.postgresql.prepared-statement-cache-size-mib:5}")
+    private int preparedStatementCacheSizeMiB;
+
+    /**
+     * The H2 database when local.run.db is H2. Other instances can share the one H2ServerConfiguration serves,
+     * e.g. jdbc:h2:tcp://localhost:9092/mem:testdb, to try out work shared between instances, see LeaseService
+     */
+    @Value("${apollo.datasource.h2.url:jdbc:h2:mem:testdb}")
+    private String h2Url;
+
+    /**
+     * Read replica for read only transactions. Without a url every connection comes from the primary
+     */
+    @Value("${apollo.datasource.replica.url:}")
+    private String replicaUrl;
+
+    @Value("${apollo.datasource.replica.username:${MYDBUSER:sa}}")
+    private String replicaUser;
+
+    @Value("${apollo.datasource.replica.password:${MYDBPASSWORD:}}")
+    private String replicaPassword;
+
+    /**
+     * Returns the replica lag in milliseconds, the PostgreSQL standby lag unless set
+     */
+    @Value("${apollo.datasource.replica.lag-query:}")
+    private String replicaLagQuery;
+
+    @Value("${apollo.datasource.replica.max-lag-ms:5000}")
+    private long replicaMaxLagMs;
+
     private static void checkEnvironmentVariable(String envvar) {
         if (System.getenv(envvar) == null) {
             stop = true;
         }
     }
 
+    /**
+     * The data source behind the application. Sizing, timeouts and leak detection of the primary Hikari pool are
+     * bound from spring.datasource.hikari.*, and the pool reports hikaricp.connections.* gauges and timers to Micrometer.
+     * <p>
+     * When apollo.datasource.replica.url is set, read only transactions are routed to the replica pool,
+     * see ReadWriteRoutingDataSource.
+     */
+    @Primary
     @Bean(name = "dsCustom")
-    public DataSource dataSource() {
+    public DataSource dataSource(ObjectProvider<MeterRegistry> meterRegistry,
+                                 @Qualifier("dsReplica") ObjectProvider<DataSource> replica,
+                                 ObjectProvider<ReplicaLagMonitor> replicaLagMonitor) {
         String myUrlString = "";
         String myDriverClass = "";
         String myDBUser = "";
@@ -55,18 +124,81 @@ public class DataSourceConfig {
             myDBPassword = System.getenv("MYDBPASSWORD");
         } else {
             // Assumes H2
-            myUrlString = "jdbc:h2:mem:testdb";
+            myUrlString = h2Url;
             myDriverClass = "org.h2.Driver";
             myDBUser = "sa";
             myDBPassword = "";
         }
 
-        return DataSourceBuilder.create()
+        HikariDataSource pool = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
                 .username(myDBUser)
                 .password(myDBPassword)
                 .url(myUrlString)
                 .driverClassName(myDriverClass)
                 .build();
+        configurePool(pool, "spring.datasource.hikari", meterRegistry);
+
+        DataSource target = pool;
+        DataSource replicaPool = replica.getIfAvailable();
+        if (replicaPool != null) {
+            ReplicaLagMonitor monitor = replicaLagMonitor.getObject();
+            target = new LazyConnectionDataSourceProxy(
+                    new ReadWriteRoutingDataSource(pool, replicaPool, monitor::isAvailable));
+        }
+
+        // every statement is counted and timed per HTTP request, see QueryMetricsFilter
+        return new QueryMetricsDataSource(target);
+    }
+
+    /**
+     * The replica pool. It is bound from spring.datasource.hikari.* and then apollo.datasource.replica.hikari.*,
+     * so only the settings that differ from the primary need to be given.
+     */
+    @Bean(name = "dsReplica")
+    @ConditionalOnProperty(name = "apollo.datasource.replica.url")
+    public DataSource replicaDataSource(ObjectProvider<MeterRegistry> meterRegistry) {
+        HikariDataSource pool = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .username(replicaUser)
+                .password(replicaPassword)
+                .url(replicaUrl)
+                .build();
+        configurePool(pool, "spring.datasource.hikari", meterRegistry);
+        pool.setPoolName("apollo-replica");
+        pool.setReadOnly(true);
+        Binder.get(env).bind("apollo.datasource.replica.hikari", Bindable.ofInstance(pool));
+        return pool;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "apollo.datasource.replica.url")
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier("dsReplica") DataSource replica) {
+        String lagQuery = replicaLagQuery;
+        if (lagQuery.isEmpty()) {
+            lagQuery = isPostgresql(replicaUrl) ? ReplicaLagMonitor.POSTGRESQL_LAG_QUERY : "SELECT 0";
+        }
+        return new ReplicaLagMonitor(replica, lagQuery, replicaMaxLagMs);
+    }
+
+    private void configurePool(HikariDataSource pool, String prefix, ObjectProvider<MeterRegistry> meterRegistry) {
+        Binder.get(env).bind(prefix, Bindable.ofInstance(pool));
+
+        if (isPostgresql(pool.getJdbcUrl())) {
+            pool.addDataSourceProperty("reWriteBatchedInserts", rewriteBatchedInserts);
+            pool.addDataSourceProperty("prepareThreshold", prepareThreshold);
+            pool.addDataSourceProperty("preparedStatementCacheQueries", preparedStatementCacheQueries);
+            pool.addDataSourceProperty("preparedStatementCacheSizeMiB", preparedStatementCacheSizeMiB);
+        }
+
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+        }
+    }
+
+    private static boolean isPostgresql(String url) {
+        return url != null && url.startsWith("jdbc:postgresql:");
     }
 
     @Bean(name = "jdbcCustom")
@@ -20,13 +20,16 @@ import org.springframework.security.config.annotation.web.configuration.WebSecur
                                         "/swagger-resource/**",
                                         "/swagger-ui.html",
                                         "/v2/api-docs",
-                                        "/webjars/**")
+                                        "/webjars/**",
+                                        "/actuator/health")
                                         .permitAll()
                                         .antMatchers("/users/**",
                                                 "/topics/**",
                                                 "/contexts/**",
                                                 "/questions/**",
-                                                "/surveys/**")
+                                                "/surveys/**",
+                                                // pool, query and cache metrics, for operators only
+                                                "/actuator/**")
                                         .authenticated()
                                         .and()
                                         .oauth2ResourceServer().jwt();
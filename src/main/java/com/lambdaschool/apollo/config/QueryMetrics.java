@@ -0,0 +1,80 @@
+package com.lambdaschool.apollo.config;
+
+/**
+ * Database work done while serving one HTTP request: SQL statements executed, time spent in JDBC,
+ * entities loaded and collections initialized by Hibernate.
+ * <p>
+ * The counters live in a thread local opened and closed by QueryMetricsFilter. Work done outside a request,
+ * such as seeding, is not counted.
+ */
+public class QueryMetrics {
+    private static final ThreadLocal<QueryMetrics> CURRENT = new ThreadLocal<>();
+
+    private long statements;
+    private long jdbcNanos;
+    private long entitiesLoaded;
+    private long collectionsInitialized;
+
+    /**
+     * Starts counting on the current thread
+     *
+     * @return The counters for the current thread
+     */
+    public static QueryMetrics start() {
+        QueryMetrics metrics = new QueryMetrics();
+        CURRENT.set(metrics);
+        return metrics;
+    }
+
+    /**
+     * Stops counting on the current thread
+     */
+    public static void stop() {
+        CURRENT.remove();
+    }
+
+    /**
+     * @return The counters for the current thread, or null when nothing is being counted
+     */
+    public static QueryMetrics current() {
+        return CURRENT.get();
+    }
+
+    static void statementExecuted(long nanos) {
+        QueryMetrics metrics = CURRENT.get();
+        if (metrics != null) {
+            metrics.statements++;
+            metrics.jdbcNanos += nanos;
+        }
+    }
+
+    static void entityLoaded() {
+        QueryMetrics metrics = CURRENT.get();
+        if (metrics != null) {
+            metrics.entitiesLoaded++;
+        }
+    }
+
+    static void collectionInitialized() {
+        QueryMetrics metrics = CURRENT.get();
+        if (metrics != null) {
+            metrics.collectionsInitialized++;
+        }
+    }
+
+    public long getStatements() {
+        return statements;
+    }
+
+    public long getJdbcNanos() {
+        return jdbcNanos;
+    }
+
+    public long getEntitiesLoaded() {
+        return entitiesLoaded;
+    }
+
+    public long getCollectionsInitialized() {
+        return collectionsInitialized;
+    }
+}
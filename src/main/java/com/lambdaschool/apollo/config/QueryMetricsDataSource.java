@@ -0,0 +1,73 @@
+package com.lambdaschool.apollo.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Wraps the application data source so every statement execution is counted and timed in QueryMetrics.
+ * Connections and statements are plain JDK proxies around the pooled ones; unwrap reaches the real objects.
+ */
+public class QueryMetricsDataSource extends DelegatingDataSource {
+
+    public QueryMetricsDataSource(DataSource target) {
+        super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return proxyConnection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return proxyConnection(super.getConnection(username, password));
+    }
+
+    private static Connection proxyConnection(Connection target) {
+        return (Connection) Proxy.newProxyInstance(QueryMetricsDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(target, method, args);
+                    if (result instanceof Statement) {
+                        return proxyStatement((Statement) result);
+                    }
+                    return result;
+                });
+    }
+
+    private static Statement proxyStatement(Statement target) {
+        Class<?> type = target instanceof CallableStatement ? CallableStatement.class
+                : target instanceof PreparedStatement ? PreparedStatement.class
+                : Statement.class;
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (!method.getName().startsWith("execute")) {
+                return invoke(target, method, args);
+            }
+            long started = System.nanoTime();
+            try {
+                return invoke(target, method, args);
+            } finally {
+                QueryMetrics.statementExecuted(System.nanoTime() - started);
+            }
+        };
+        return (Statement) Proxy.newProxyInstance(QueryMetricsDataSource.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
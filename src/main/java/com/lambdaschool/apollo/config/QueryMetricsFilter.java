@@ -0,0 +1,128 @@
+package com.lambdaschool.apollo.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects QueryMetrics for every HTTP request and reports them three ways:
+ * <ul>
+ * <li>Micrometer meters tagged with the controller method that served the request</li>
+ * <li>a warning in the log for requests slower than apollo.query-metrics.slow-request-ms</li>
+ * <li>X-Query-Count, X-Query-Time-Ms, X-Entities-Loaded and X-Collections-Initialized response headers,
+ * only when apollo.query-metrics.headers=true as the response has to be buffered to add them, and never on
+ * Server-Sent Events streams</li>
+ * </ul>
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class QueryMetricsFilter extends OncePerRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger(QueryMetricsFilter.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${apollo.query-metrics.headers:false}")
+    private boolean headers;
+
+    @Value("${apollo.query-metrics.slow-request-ms:1000}")
+    private long slowRequestMs;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        QueryMetrics metrics = QueryMetrics.start();
+        ContentCachingResponseWrapper buffered = headers && !isEventStream(request) ? new ContentCachingResponseWrapper(response) : null;
+        long started = System.nanoTime();
+        try {
+            chain.doFilter(request, buffered != null ? buffered : response);
+        } finally {
+            long elapsedNanos = System.nanoTime() - started;
+            QueryMetrics.stop();
+
+            String handler = handlerName(request);
+            record(handler, metrics);
+
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+            if (elapsedMs >= slowRequestMs) {
+                logger.warn("Slow request {} {} ({}) took {} ms: {} statements, {} ms in JDBC, {} entities loaded, {} collections initialized",
+                        request.getMethod(), request.getRequestURI(), handler, elapsedMs, metrics.getStatements(),
+                        TimeUnit.NANOSECONDS.toMillis(metrics.getJdbcNanos()), metrics.getEntitiesLoaded(),
+                        metrics.getCollectionsInitialized());
+            }
+
+            if (buffered != null) {
+                buffered.setHeader("X-Query-Count", Long.toString(metrics.getStatements()));
+                buffered.setHeader("X-Query-Time-Ms", Long.toString(TimeUnit.NANOSECONDS.toMillis(metrics.getJdbcNanos())));
+                buffered.setHeader("X-Entities-Loaded", Long.toString(metrics.getEntitiesLoaded()));
+                buffered.setHeader("X-Collections-Initialized", Long.toString(metrics.getCollectionsInitialized()));
+                buffered.copyBodyToResponse();
+            }
+        }
+    }
+
+    /**
+     * Server-Sent Events are written long after the filter returns, buffering would hold them back for good
+     */
+    private static boolean isEventStream(HttpServletRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        return accept != null && accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE);
+    }
+
+    private void record(String handler, QueryMetrics metrics) {
+        DistributionSummary.builder("apollo.request.sql.statements")
+                .description("SQL statements executed per HTTP request")
+                .tag("handler", handler)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(metrics.getStatements());
+        Timer.builder("apollo.request.jdbc.time")
+                .description("Time spent executing SQL per HTTP request")
+                .tag("handler", handler)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(metrics.getJdbcNanos(), TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("apollo.request.entities.loaded")
+                .description("Entities loaded by Hibernate per HTTP request")
+                .tag("handler", handler)
+                .register(meterRegistry)
+                .record(metrics.getEntitiesLoaded());
+        DistributionSummary.builder("apollo.request.collections.initialized")
+                .description("Lazy collections initialized by Hibernate per HTTP request")
+                .tag("handler", handler)
+                .register(meterRegistry)
+                .record(metrics.getCollectionsInitialized());
+    }
+
+    /**
+     * @return Controller#method of the handler that served the request, or "none" when no handler matched
+     */
+    private static String handlerName(HttpServletRequest request) {
+        Object handler = request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+        if (handler instanceof HandlerMethod) {
+            HandlerMethod hm = (HandlerMethod) handler;
+            return hm.getBeanType().getSimpleName() + "#" + hm.getMethod().getName();
+        }
+        return "none";
+    }
+}
@@ -0,0 +1,32 @@
+package com.lambdaschool.apollo.config;
+
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.internal.SessionFactoryImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Counts the entities Hibernate loads and the collections it initializes into QueryMetrics
+ */
+@Component
+public class QueryMetricsListeners {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImpl.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_LOAD, (PostLoadEventListener) event -> QueryMetrics.entityLoaded());
+        registry.appendListeners(EventType.INIT_COLLECTION,
+                (InitializeCollectionEventListener) event -> QueryMetrics.collectionInitialized());
+    }
+}
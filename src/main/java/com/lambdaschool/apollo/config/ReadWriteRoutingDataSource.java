@@ -0,0 +1,45 @@
+package com.lambdaschool.apollo.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Sends connections for read only transactions to the replica pool and everything else to the primary.
+ * Reads go back to the primary while the replica is unavailable, see ReplicaLagMonitor.
+ * <p>
+ * Spring marks a transaction read only after it has asked for the connection, so this has to sit behind a
+ * LazyConnectionDataSourceProxy, which only picks the real connection when the first statement runs.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Route {
+        PRIMARY,
+        REPLICA
+    }
+
+    private final BooleanSupplier replicaAvailable;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, BooleanSupplier replicaAvailable) {
+        this.replicaAvailable = replicaAvailable;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(Route.PRIMARY, primary);
+        targets.put(Route.REPLICA, replica);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && replicaAvailable.getAsBoolean()) {
+            return Route.REPLICA;
+        }
+        return Route.PRIMARY;
+    }
+}
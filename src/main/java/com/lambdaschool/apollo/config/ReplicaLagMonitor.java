@@ -0,0 +1,82 @@
+package com.lambdaschool.apollo.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+
+/**
+ * Checks the replica on a fixed delay and takes it out of rotation while it cannot be reached
+ * or lags more than apollo.datasource.replica.max-lag-ms behind the primary.
+ */
+public class ReplicaLagMonitor {
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    /**
+     * Replication lag in milliseconds on a PostgreSQL standby. A standby that has replayed everything it received
+     * is not lagging, however old its last replayed transaction is. A server that is not a standby returns 0.
+     */
+    static final String POSTGRESQL_LAG_QUERY = "SELECT CASE " +
+            "WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE CAST(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000 AS BIGINT) END";
+
+    private final JdbcTemplate replica;
+    private final String lagQuery;
+    private final long maxLagMs;
+
+    private volatile boolean available = true;
+    private volatile long lagMs;
+
+    /**
+     * @param replica  The replica pool, not the routing data source
+     * @param lagQuery Returns the replica lag in milliseconds as a single number
+     * @param maxLagMs Lag above which reads go to the primary
+     */
+    public ReplicaLagMonitor(DataSource replica, String lagQuery, long maxLagMs) {
+        this.replica = new JdbcTemplate(replica);
+        this.lagQuery = lagQuery;
+        this.maxLagMs = maxLagMs;
+    }
+
+    @Scheduled(fixedDelayString = "${apollo.datasource.replica.check-interval-ms:5000}")
+    public void check() {
+        boolean ok;
+        try {
+            Long lag = replica.queryForObject(lagQuery, Long.class);
+            lagMs = lag == null ? 0 : lag;
+            ok = lagMs <= maxLagMs;
+        } catch (DataAccessException e) {
+            lagMs = -1;
+            ok = false;
+            if (available) {
+                logger.warn("Replica check failed: {}", e.getMessage());
+            }
+        }
+
+        if (ok != available) {
+            if (ok) {
+                logger.info("Replica back in rotation, lag {} ms", lagMs);
+            } else {
+                logger.warn("Replica out of rotation, lag {} ms, max {} ms", lagMs, maxLagMs);
+            }
+            available = ok;
+        }
+    }
+
+    /**
+     * @return Whether reads may go to the replica
+     */
+    public boolean isAvailable() {
+        return available;
+    }
+
+    /**
+     * @return The lag seen by the last check in milliseconds, -1 when the replica could not be reached
+     */
+    public long getLagMs() {
+        return lagMs;
+    }
+}
@@ -0,0 +1,12 @@
+package com.lambdaschool.apollo.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Turns on @Scheduled methods, such as ReplicaLagMonitor.check
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
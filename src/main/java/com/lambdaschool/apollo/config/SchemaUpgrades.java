@@ -0,0 +1,107 @@
+package com.lambdaschool.apollo.config;
+
+import com.lambdaschool.apollo.services.QuestionAggregateService;
+import com.lambdaschool.apollo.services.TopicRollupService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Schema changes spring.jpa.hibernate.ddl-auto=update does not make on an existing PostgreSQL database,
+ * as it only adds tables, columns and constraints. Runs after Hibernate updated the schema,
+ * and every statement can run again on the next start. H2 is created from the entities on every start.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class SchemaUpgrades {
+    private static final Logger logger = LoggerFactory.getLogger(SchemaUpgrades.class);
+
+    static final String[] POSTGRESQL = {
+            // questions that use a template keep their body there, see QuestionTemplate
+            "ALTER TABLE questions ALTER COLUMN body DROP NOT NULL"
+    };
+
+    /**
+     * Answers of a user to a question other than the first one, from before answers_questionid_userid_key existed
+     */
+    static final String DUPLICATE_ANSWERS = "FROM answers a JOIN answers b ON a.questionid = b.questionid " +
+            "AND a.userid = b.userid AND a.answerid > b.answerid";
+
+    /**
+     * Hibernate fails to add the constraint while there are duplicates, logs it and starts anyway
+     */
+    static final String ADD_ANSWERS_UNIQUE = "DO $$ BEGIN " +
+            "IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'answers_questionid_userid_key') THEN " +
+            "ALTER TABLE answers ADD CONSTRAINT answers_questionid_userid_key UNIQUE (questionid, userid); " +
+            "END IF; END $$";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private QuestionAggregateService questionAggregateService;
+
+    @Autowired
+    private TopicRollupService topicRollupService;
+
+    @Value("${local.run.db:H2}")
+    private String db;
+
+    @PostConstruct
+    public void upgrade() {
+        if (db.equalsIgnoreCase("POSTGRESQL")) {
+            for (String sql : POSTGRESQL) {
+                jdbcTemplate.execute(sql);
+            }
+            uniqueAnswers();
+        }
+    }
+
+    /**
+     * Keeps the first answer of each user to each question and adds the unique constraint, with inserts locked out
+     * in between. Startup fails if the constraint still cannot be added. The aggregates and rollups of the surveys
+     * that had duplicates counted them, so they are rebuilt.
+     */
+    private void uniqueAnswers() {
+        Set<Long> surveyids = new LinkedHashSet<>();
+        Set<Long> topicids = new LinkedHashSet<>();
+        new TransactionTemplate(transactionManager).execute(status -> {
+            jdbcTemplate.execute("LOCK TABLE answers IN SHARE ROW EXCLUSIVE MODE");
+            jdbcTemplate.query("SELECT DISTINCT a.surveyid, s.topicid " + DUPLICATE_ANSWERS +
+                    " JOIN surveys s ON s.surveyid = a.surveyid", rs -> {
+                surveyids.add(rs.getLong("surveyid"));
+                long topicid = rs.getLong("topicid");
+                if (!rs.wasNull()) {
+                    topicids.add(topicid);
+                }
+            });
+            if (!surveyids.isEmpty()) {
+                int deleted = jdbcTemplate.update("DELETE FROM answers WHERE answerid IN (SELECT a.answerid " +
+                        DUPLICATE_ANSWERS + ")");
+                logger.warn("Deleted {} duplicate answers in surveys {}", deleted, surveyids);
+            }
+            jdbcTemplate.execute(ADD_ANSWERS_UNIQUE);
+            return null;
+        });
+
+        for (long surveyid : surveyids) {
+            questionAggregateService.rebuild(surveyid);
+        }
+        for (long topicid : topicids) {
+            topicRollupService.rebuild(topicid);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.lambdaschool.apollo.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs request handling and @Async work on virtual threads instead of Tomcat's pool of 200 platform threads, when
+ * apollo.virtual-threads.enabled=true. A request that waits on JDBC or on the Okta JWKS then parks a virtual thread,
+ * which costs a few hundred bytes of heap, rather than holding one of the platform threads, so many slow clients no
+ * longer queue behind each other. Connections to the database are still limited by the Hikari pool.
+ * <p>
+ * A virtual thread that blocks inside a synchronized block pins its carrier, and only as many run at once as there
+ * are cores. PgJDBC before 42.6 waits on its socket that way, which is why pom.xml moves postgresql past the version
+ * Spring Boot 2.2 manages; with the older driver this mode runs fewer queries at once than the thread pool.
+ * Run with -Djdk.tracePinnedThreads=short to find other places that pin.
+ * <p>
+ * Needs a Java 21 runtime. The code is compiled for the java.version in pom.xml, which Spring 5.2 can still read,
+ * so the executor is looked up at runtime and startup fails with a clear message on an older runtime.
+ * Raise server.tomcat.max-connections along with it, that is what limits concurrent requests from then on.
+ */
+@Configuration
+@ConditionalOnProperty(name = "apollo.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+    /**
+     * One virtual thread per task, shut down with the context
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService virtualThreadExecutor() {
+        try {
+            ExecutorService executor = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+            logger.info("Handling requests on virtual threads");
+            return executor;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("apollo.virtual-threads.enabled=true needs Java 21 or later, running on "
+                    + System.getProperty("java.version"), e);
+        }
+    }
+
+    @Bean
+    public WebServerFactoryCustomizer<TomcatServletWebServerFactory> virtualThreadTomcatCustomizer(ExecutorService virtualThreadExecutor) {
+        return factory -> factory.addProtocolHandlerCustomizers(protocol -> protocol.setExecutor(virtualThreadExecutor));
+    }
+
+    /**
+     * Replaces the pool Spring Boot sets up for @Async methods and asynchronous MVC requests
+     */
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME, "taskExecutor"})
+    public AsyncTaskExecutor applicationTaskExecutor(ExecutorService virtualThreadExecutor) {
+        return new TaskExecutorAdapter(virtualThreadExecutor);
+    }
+}
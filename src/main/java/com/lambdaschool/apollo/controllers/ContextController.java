@@ -2,6 +2,7 @@ package com.lambdaschool.apollo.controllers;
 
 import com.lambdaschool.apollo.models.Context;
 import com.lambdaschool.apollo.services.ContextService;
+import com.lambdaschool.apollo.services.FetchPlans;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
@@ -22,15 +23,20 @@ public class ContextController {
     @Autowired
     private ContextService contextService;
 
+    @Autowired
+    private FetchPlans fetchPlans;
+
     @ApiOperation(value = "List all context types")
     @ApiResponses(value = {
             @ApiResponse(code = 200, message = "Successfully retrieved list", response = Context.class, responseContainer = "List"),
             @ApiResponse(code = 401, message = "Not authorized"),
             @ApiResponse(code = 500, message = "Internal Server Error")
     })
+    @Transactional(readOnly = true)
     @GetMapping(value = "/contexts", produces = {"application/json"})
     public ResponseEntity<?> getAllContexts() {
         List<Context> myContexts = contextService.findAll();
+        fetchPlans.contexts(myContexts);
         return new ResponseEntity<>(myContexts, HttpStatus.OK);
     }
 
@@ -40,9 +46,11 @@ public class ContextController {
             @ApiResponse(code = 401, message = "Not authorized"),
             @ApiResponse(code = 500, message = "Internal Server Error")
     })
+    @Transactional(readOnly = true)
     @GetMapping(value = "/contexts/{contextId}", produces = {"application/json"})
     public ResponseEntity<?> getContextById(@PathVariable Long contextId) {
         Context context = contextService.findById(contextId);
+        fetchPlans.context(context);
         return new ResponseEntity<>(context, HttpStatus.OK);
     }
 
@@ -52,6 +60,7 @@ public class ContextController {
         context.setContextId(0);
         context.getSurvey().setSurveyid(0);
         context = contextService.save(context);
+        fetchPlans.context(context);
         return new ResponseEntity<>(context, HttpStatus.CREATED);
     }
 
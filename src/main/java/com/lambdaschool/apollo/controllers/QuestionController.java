@@ -2,13 +2,16 @@ package com.lambdaschool.apollo.controllers;
 
 import com.lambdaschool.apollo.handlers.HelperFunctions;
 import com.lambdaschool.apollo.models.Question;
+import com.lambdaschool.apollo.services.FetchPlans;
 import com.lambdaschool.apollo.services.QuestionService;
+import com.lambdaschool.apollo.views.KeysetPage;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -23,23 +26,46 @@ public class QuestionController {
     @Autowired
     HelperFunctions helperFunctions;
 
+    @Autowired
+    FetchPlans fetchPlans;
+
     @ApiOperation(value = "List all questions")
     @ApiResponses(value = {
             @ApiResponse(code = 200, message = "Successfully retrieved lsit", response = Question.class),
             @ApiResponse(code = 401, message = "Not authorized"),
             @ApiResponse(code = 500, message = "Internal Server Error")
     })
+    @Transactional(readOnly = true)
     @GetMapping(value = "/all", produces = {"application/json"})
     public ResponseEntity<?> getAllQuestions() {
         List<Question> questions = questionService.findAllQuestions();
+        fetchPlans.questions(questions);
         return new ResponseEntity<>(questions, HttpStatus.OK);
     }
 
+    @ApiOperation(value = "List one page of questions, ordered by question id. Pass nextcursor as after to get the next page")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Successfully retrieved page", response = KeysetPage.class),
+            @ApiResponse(code = 401, message = "Not authorized"),
+            @ApiResponse(code = 500, message = "Internal Server Error")
+    })
+    @Transactional(readOnly = true)
+    @GetMapping(value = "/all/page", produces = {"application/json"})
+    public ResponseEntity<?> getQuestionsPage(@RequestParam(defaultValue = "0") long after,
+                                              @RequestParam(required = false) Integer size,
+                                              @RequestParam(required = false) Long surveyid) {
+        KeysetPage<Question> page = questionService.findQuestionsPage(after, size, surveyid);
+        fetchPlans.questions(page.getItems());
+        return new ResponseEntity<>(page, HttpStatus.OK);
+    }
+
+    @Transactional(readOnly = true)
     @GetMapping(value = "/leader/{surveyid}", produces = "application/json")
     public ResponseEntity<?> getLeaderQuestionsBySurveyId(@PathVariable
                                                           long surveyid) {
         List<Question> questions = helperFunctions.isLeaderQuestion(
                 questionService.findAllBySurveyId(surveyid));
+        fetchPlans.questions(questions);
         return new ResponseEntity<>(questions, HttpStatus.OK);
     }
 
@@ -1,11 +1,13 @@
 package com.lambdaschool.apollo.controllers;
 
 import com.lambdaschool.apollo.models.Role;
+import com.lambdaschool.apollo.services.FetchPlans;
 import com.lambdaschool.apollo.services.RoleService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
@@ -25,6 +27,9 @@ public class RolesController {
     @Autowired
     RoleService roleService;
 
+    @Autowired
+    FetchPlans fetchPlans;
+
     /**
      * List of all roles
      * <br>Example: <a href="http://localhost:2019/roles/roles">http://localhost:2019/roles/roles</a>
@@ -32,10 +37,12 @@ public class RolesController {
      * @return JSON List of all the roles and their associated users
      * @see RoleService#findAll() RoleService.findAll()
      */
+    @Transactional(readOnly = true)
     @GetMapping(value = "/roles",
             produces = {"application/json"})
     public ResponseEntity<?> listRoles() {
         List<Role> allRoles = roleService.findAll();
+        fetchPlans.roles(allRoles);
         return new ResponseEntity<>(allRoles,
                 HttpStatus.OK);
     }
@@ -48,12 +55,14 @@ public class RolesController {
      * @return JSON object of the role you seek
      * @see RoleService#findRoleById(long) RoleService.findRoleById(long)
      */
+    @Transactional(readOnly = true)
     @GetMapping(value = "/role/{roleId}",
             produces = {"application/json"})
     public ResponseEntity<?> getRoleById(
             @PathVariable
                     Long roleId) {
         Role r = roleService.findRoleById(roleId);
+        fetchPlans.role(r);
         return new ResponseEntity<>(r,
                 HttpStatus.OK);
     }
@@ -66,12 +75,14 @@ public class RolesController {
      * @return JSON object of the role you seek
      * @see RoleService#findByName(String) RoleService.findByName(String)
      */
+    @Transactional(readOnly = true)
     @GetMapping(value = "/role/name/{roleName}",
             produces = {"application/json"})
     public ResponseEntity<?> getRoleByName(
             @PathVariable
                     String roleName) {
         Role r = roleService.findByName(roleName);
+        fetchPlans.role(r);
         return new ResponseEntity<>(r,
                 HttpStatus.OK);
     }
@@ -1,11 +1,16 @@
 package com.lambdaschool.apollo.controllers;
 
 import com.lambdaschool.apollo.exceptions.ResourceFoundException;
+import com.lambdaschool.apollo.handlers.AnswerExportWriter;
 import com.lambdaschool.apollo.handlers.HelperFunctions;
 import com.lambdaschool.apollo.models.*;
 import com.lambdaschool.apollo.services.*;
+import com.lambdaschool.apollo.views.ExportFormat;
+import com.lambdaschool.apollo.views.KeysetPage;
 import com.lambdaschool.apollo.views.QuestionBody;
+import com.lambdaschool.apollo.views.ResponseEvent;
 import com.lambdaschool.apollo.views.SurveyQuestion;
+import com.lambdaschool.apollo.views.SurveySummary;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiResponse;
@@ -16,12 +21,14 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
+import java.io.IOException;
 import java.net.URISyntaxException;
-import java.util.ArrayList;
 import java.util.List;
 
 @RestController
@@ -45,7 +52,13 @@ public class SurveyController {
     private TopicService topicService;
 
     @Autowired
-    private QuestionService questionService;
+    private FetchPlans fetchPlans;
+
+    @Autowired
+    private QuestionAggregateService questionAggregateService;
+
+    @Autowired
+    private ResponseEventHub responseEventHub;
 
     @ApiOperation(value = "Create new survey ")
     @ApiResponses(value = {
@@ -78,32 +91,9 @@ public class SurveyController {
             @Valid
             @RequestBody List<QuestionBody> myList)
             throws URISyntaxException {
-        User user = userService.findByOKTAUserName(authentication.getName());
-        for (QuestionBody qb: myList) {
-            Question question = questionService.findById(qb.getQuestionid());
-            for (Answer a: question.getAnswers()) {
-                if (user.getUserid() == a.getUser().getUserid()) {
-                    throw new ResourceFoundException("Current user already answered question with id - " + question.getQuestionid());
-                }
-            }
-            Survey survey = surveyService.findById(question.getSurvey().getSurveyid());
-            Topic topic = topicService.findTopicById(survey.getTopic().getTopicId());
-            List<TopicUsers> topicUsers = topic.getUsers();
-            List<User> users = new ArrayList<>();
-            for (TopicUsers tu: topicUsers) users.add(tu.getUser());
-            if (question.isLeader()) {
-                if (user.getUserid() != topic.getOwner().getUserid()) {
-                    throw new ResourceFoundException("Current user not owner of topic with id - " + topic.getTopicId());
-                }
-            } else {
-                if (user.getUserid() == topic.getOwner().getUserid()) {
-                    throw new ResourceFoundException("Topic owner cannot answer request questions");
-                } else if (!users.contains(user)) {
-                    throw new ResourceFoundException("Current user not a member of topic with id - " + topic.getTopicId());
-                }
-            }
-            answerService.save(qb, user);
-        }
+        User user = userService.findPrincipal(authentication.getName());
+        // validates membership, leader / owner rules and duplicates for the whole list, then inserts it as one batch
+        answerService.saveAll(myList, user);
         return new ResponseEntity<>(null, HttpStatus.CREATED);
     }
 
@@ -114,19 +104,42 @@ public class SurveyController {
             @ApiResponse(code = 500, message = "Internal Server Error")
     })
 
+    @Transactional(readOnly = true)
     @GetMapping(value = "/all", produces = {"application/json"})
     public ResponseEntity<?> getAllSurveys(Authentication authentication) {
         List<Survey> surveys = surveyService.findAllSurveys();
-        helperFunctions.hasResponded(surveys, userService.findByOKTAUserName(authentication.getName()));
+        fetchPlans.surveys(surveys);
+        helperFunctions.hasResponded(surveys, userService.findPrincipal(authentication.getName()));
 
         return new ResponseEntity<>(surveys, HttpStatus.OK);
     }
 
+    @ApiOperation(value = "List one page of surveys, ordered by survey id. Pass nextcursor as after to get the next page")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Successfully retrieved page", response = KeysetPage.class),
+            @ApiResponse(code = 401, message = "Not authorized"),
+            @ApiResponse(code = 500, message = "Internal Server Error")
+    })
+    @Transactional(readOnly = true)
+    @GetMapping(value = "/all/page", produces = {"application/json"})
+    public ResponseEntity<?> getSurveysPage(Authentication authentication,
+                                            @RequestParam(defaultValue = "0") long after,
+                                            @RequestParam(required = false) Integer size,
+                                            @RequestParam(required = false) Long topicid) {
+        KeysetPage<Survey> page = surveyService.findSurveysPage(after, size, topicid);
+        fetchPlans.surveys(page.getItems());
+        helperFunctions.hasResponded(page.getItems(), userService.findPrincipal(authentication.getName()));
+
+        return new ResponseEntity<>(page, HttpStatus.OK);
+    }
+
+    @Transactional(readOnly = true)
     @GetMapping(value = "/survey/{surveyid}", produces = {"application/json"})
     public ResponseEntity<?> getAllSurveys(Authentication authentication, @PathVariable long surveyid) {
         Survey survey = surveyService.findById(surveyid);
+        fetchPlans.survey(survey);
 
-        helperFunctions.hasResponded(survey, userService.findByOKTAUserName(authentication.getName()));
+        helperFunctions.hasResponded(survey, userService.findPrincipal(authentication.getName()));
         return new ResponseEntity<>(survey, HttpStatus.OK);
     }
 
@@ -134,7 +147,7 @@ public class SurveyController {
     @PostMapping(value = "/topic/{topicid}", consumes = "application/json", produces = "application/json")
     public ResponseEntity<?> createSurveyRequest(@RequestBody @NotNull List<SurveyQuestion> questions, Authentication authentication, @PathVariable long topicid) {
         //Check that the current use is the owner of the topic for which they are trying to create a request
-        User u = userService.findByOKTAUserName(authentication.getName());
+        User u = userService.findPrincipal(authentication.getName());
         //Get topic from url path variable
         Topic topic  = topicService.findTopicById(topicid);
         //if user is owner of topic return new survey otherwise throw exception saying user is not authorized
@@ -146,6 +159,7 @@ public class SurveyController {
         }
     }
 
+    @Transactional(readOnly = true)
     @GetMapping(value = "/survey/{surveyid}/responses", produces = {"application/json"})
     public ResponseEntity<?> getResponses(Authentication authentication, @PathVariable long surveyid) {
         Survey survey = surveyService.findById(surveyid);
@@ -153,4 +167,84 @@ public class SurveyController {
 
         return new ResponseEntity<>(responses, HttpStatus.OK);
     }
+
+    @ApiOperation(value = "Get the aggregated results of each RATING, BOOL and MULTIPLE question of a survey")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Successfully retrieved summary", response = SurveySummary.class),
+            @ApiResponse(code = 401, message = "Not authorized"),
+            @ApiResponse(code = 404, message = "Survey Not Found"),
+            @ApiResponse(code = 500, message = "Internal Server Error")
+    })
+    @GetMapping(value = "/survey/{surveyid}/summary", produces = {"application/json"})
+    public ResponseEntity<?> getSummary(@PathVariable long surveyid) {
+        // findById throws if the survey does not exist
+        surveyService.findById(surveyid);
+        SurveySummary summary = questionAggregateService.findSummary(surveyid);
+        return new ResponseEntity<>(summary, HttpStatus.OK);
+    }
+
+    @ApiOperation(value = "Recompute the aggregated results of a survey from its responses. Only the leader of the topic may rebuild")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Successfully rebuilt summary", response = SurveySummary.class),
+            @ApiResponse(code = 401, message = "Not authorized"),
+            @ApiResponse(code = 404, message = "Survey Not Found"),
+            @ApiResponse(code = 500, message = "Internal Server Error")
+    })
+    @PostMapping(value = "/survey/{surveyid}/summary/rebuild", produces = {"application/json"})
+    public ResponseEntity<?> rebuildSummary(Authentication authentication, @PathVariable long surveyid) {
+        User u = userService.findPrincipal(authentication.getName());
+        Topic topic = surveyService.findById(surveyid).getTopic();
+        if (topic == null || u.getUserid() != topic.getOwner().getUserid()) {
+            throw new ResourceFoundException("Current user not authorized to make this request");
+        }
+        questionAggregateService.rebuild(surveyid);
+        return new ResponseEntity<>(questionAggregateService.findSummary(surveyid), HttpStatus.OK);
+    }
+
+    @ApiOperation(value = "Stream what each response adds to a survey request as Server-Sent Events, instead of polling the " +
+            "responses or the summary. Sends a response event per submission and a dropped event when the client fell behind, " +
+            "after which the summary should be read again. Only the leader of the topic may watch")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Stream opened", response = ResponseEvent.class),
+            @ApiResponse(code = 401, message = "Not authorized"),
+            @ApiResponse(code = 404, message = "Survey Not Found"),
+            @ApiResponse(code = 500, message = "Internal Server Error")
+    })
+    @GetMapping(value = "/survey/{surveyid}/responses/stream", produces = {"text/event-stream"})
+    public SseEmitter streamResponses(Authentication authentication, @PathVariable long surveyid) {
+        User u = userService.findPrincipal(authentication.getName());
+        Topic topic = surveyService.findById(surveyid).getTopic();
+        if (topic == null || u.getUserid() != topic.getOwner().getUserid()) {
+            throw new ResourceFoundException("Current user not authorized to make this request");
+        }
+        return responseEventHub.subscribe(surveyid);
+    }
+
+    @ApiOperation(value = "Export the responses to a survey request as NDJSON or CSV. Only the leader of the topic may export")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Successfully exported responses"),
+            @ApiResponse(code = 400, message = "Unknown format or not the leader of the topic"),
+            @ApiResponse(code = 401, message = "Not authorized"),
+            @ApiResponse(code = 500, message = "Internal Server Error")
+    })
+    @GetMapping(value = "/survey/{surveyid}/responses/export")
+    public void exportResponses(Authentication authentication, @PathVariable long surveyid,
+                                @RequestParam(defaultValue = "ndjson") String format,
+                                HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat = ExportFormat.of(format);
+        User u = userService.findPrincipal(authentication.getName());
+        Topic topic = surveyService.findById(surveyid).getTopic();
+        if (topic == null || u.getUserid() != topic.getOwner().getUserid()) {
+            throw new ResourceFoundException("Current user not authorized to make this request");
+        }
+
+        // rows go straight from the cursor to the response, which is committed as soon as its buffer fills
+        response.setContentType(exportFormat.getContentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Content-Disposition",
+                "attachment; filename=\"survey-" + surveyid + "-responses." + exportFormat.getExtension() + "\"");
+        AnswerExportWriter writer = new AnswerExportWriter(exportFormat, response.getOutputStream());
+        answerService.exportBySurveyId(surveyid, writer);
+        writer.flush();
+    }
 }
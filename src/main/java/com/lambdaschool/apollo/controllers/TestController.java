@@ -5,6 +5,7 @@ import com.lambdaschool.apollo.models.Answer;
 import com.lambdaschool.apollo.models.Survey;
 import com.lambdaschool.apollo.models.Topic;
 import com.lambdaschool.apollo.services.AnswerService;
+import com.lambdaschool.apollo.services.FetchPlans;
 import com.lambdaschool.apollo.services.SurveyService;
 import com.lambdaschool.apollo.services.TopicService;
 import com.lambdaschool.apollo.services.UserService;
@@ -42,18 +43,23 @@ public class TestController {
     @Autowired
     private HelperFunctions helperFunctions;
 
+    @Autowired
+    private FetchPlans fetchPlans;
+
 
 
     @GetMapping(value = "/topics/topics", produces = {"application/json"})
     public ResponseEntity<?> listUserTopics() {
         List<Topic> myTopics = new ArrayList<>();
         myTopics = topicService.findTopicsByUser("llama001@maildrop.cc");
+        fetchPlans.topics(myTopics);
         return new ResponseEntity<>(myTopics, HttpStatus.OK);
     }
 
     @GetMapping(value = "/topics/topic/{topicid}", produces = "application/json")
     public ResponseEntity<?> getTopicById(@PathVariable Long topicid) {
         Topic myTopic = topicService.findTopicById(topicid);
+        fetchPlans.topic(myTopic);
         return new ResponseEntity<>(myTopic, HttpStatus.OK);
     }
 
@@ -68,7 +74,8 @@ public class TestController {
     @GetMapping(value = "/surveys/all", produces = {"application/json"})
     public ResponseEntity<?> getAllSurveys() {
         List<Survey> surveys = surveyService.findAllSurveys();
-        helperFunctions.hasResponded(surveys, userService.findByOKTAUserName("llama001@maildrop.cc"));
+        fetchPlans.surveys(surveys);
+        helperFunctions.hasResponded(surveys, userService.findPrincipal("llama001@maildrop.cc"));
 
         return new ResponseEntity<>(surveys, HttpStatus.OK);
     }
@@ -76,8 +83,9 @@ public class TestController {
     @GetMapping(value = "/surveys/survey/{surveyid}", produces = {"application/json"})
     public ResponseEntity<?> getAllSurveys(@PathVariable long surveyid) {
         Survey survey = surveyService.findById(surveyid);
+        fetchPlans.survey(survey);
 
-        helperFunctions.hasResponded(survey, userService.findByOKTAUserName("llama001@maildrop.cc"));
+        helperFunctions.hasResponded(survey, userService.findPrincipal("llama001@maildrop.cc"));
         return new ResponseEntity<>(survey, HttpStatus.OK);
     }
 }
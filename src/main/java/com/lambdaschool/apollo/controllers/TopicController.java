@@ -1,22 +1,38 @@
 package com.lambdaschool.apollo.controllers;
 
+import com.lambdaschool.apollo.exceptions.ResourceFoundException;
+import com.lambdaschool.apollo.handlers.AnswerExportWriter;
 import com.lambdaschool.apollo.handlers.HelperFunctions;
 import com.lambdaschool.apollo.models.Survey;
 import com.lambdaschool.apollo.models.Topic;
 import com.lambdaschool.apollo.models.User;
+import com.lambdaschool.apollo.services.AnswerService;
+import com.lambdaschool.apollo.services.FetchPlans;
+import com.lambdaschool.apollo.services.SurveyService;
+import com.lambdaschool.apollo.services.TopicRollupService;
 import com.lambdaschool.apollo.services.TopicService;
 import com.lambdaschool.apollo.services.UserService;
+import com.lambdaschool.apollo.views.ExportFormat;
+import com.lambdaschool.apollo.views.KeysetPage;
+import com.lambdaschool.apollo.views.RollupGranularity;
+import com.lambdaschool.apollo.views.TopicSummary;
+import com.lambdaschool.apollo.views.TopicTrends;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.net.URISyntaxException;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -32,28 +48,40 @@ public class TopicController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private SurveyService surveyService;
+
+    @Autowired
+    private AnswerService answerService;
+
+    @Autowired
+    private TopicRollupService topicRollupService;
+
     @Autowired
     private HelperFunctions helperFunctions;
 
+    @Autowired
+    private FetchPlans fetchPlans;
+
+    /**
+     * How many of the latest survey requests are listed with each topic on the dashboard
+     */
+    @Value("${apollo.topics.latest-requests:10}")
+    private int latestRequests;
+
     @ApiOperation(value = "Get all topics of current user ")
     @ApiResponses(value = {
-            @ApiResponse(code = 200, message = "Successfully retrieved list", response = Topic.class, responseContainer = "List"),
+            @ApiResponse(code = 200, message = "Successfully retrieved list", response = TopicSummary.class, responseContainer = "List"),
             @ApiResponse(code = 401, message = "Not authorized"),
             @ApiResponse(code = 500, message = "Internal Server Error")
     })
+    @Transactional(readOnly = true)
     @GetMapping(value = "/topics",
             produces = {"application/json"})
 
     public ResponseEntity<?> listUserTopics(Authentication authentication) {
-        List<Topic> myTopics = new ArrayList<>();
-        myTopics = topicService.findTopicsByUser(authentication.getName());
-        List<Survey> surveyRequests = new ArrayList<>();
-        myTopics.iterator().forEachRemaining(topic -> {
-            surveyRequests.addAll(topic.getSurveysrequests());
-        });
-        for (Survey surveyRequest : surveyRequests) {
-            helperFunctions.hasResponded(surveyRequest, userService.findByOKTAUserName(authentication.getName()));
-        }
+        User user = userService.findPrincipal(authentication.getName());
+        List<TopicSummary> myTopics = topicService.findTopicSummariesByUser(user, latestRequests);
         return new ResponseEntity<>(myTopics, HttpStatus.OK);
     }
 
@@ -63,6 +91,7 @@ public class TopicController {
             @ApiResponse(code = 401, message = "Not authorized"),
             @ApiResponse(code = 500, message = "Internal Server Error")
     })
+    @Transactional(readOnly = true)
     @GetMapping(value = "/all",
             produces = {"application/json"})
 
@@ -70,25 +99,124 @@ public class TopicController {
 
         List<Topic> myTopics = new ArrayList<>();
         myTopics = topicService.findAllTopics();
+        fetchPlans.topics(myTopics);
         return new ResponseEntity<>(myTopics, HttpStatus.OK);
     }
 
+    @ApiOperation(value = "List one page of all topics, ordered by topic id. Pass nextcursor as after to get the next page")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Successfully retrieved page", response = KeysetPage.class),
+            @ApiResponse(code = 401, message = "Not authorized"),
+            @ApiResponse(code = 500, message = "Internal Server Error")
+    })
+    @Transactional(readOnly = true)
+    @GetMapping(value = "/all/page",
+            produces = {"application/json"})
+    public ResponseEntity<?> listTopicsPage(@RequestParam(defaultValue = "0") long after,
+                                            @RequestParam(required = false) Integer size,
+                                            @RequestParam(required = false) String title) {
+        KeysetPage<Topic> page = topicService.findTopicsPage(after, size, title);
+        fetchPlans.topics(page.getItems());
+        return new ResponseEntity<>(page, HttpStatus.OK);
+    }
+
     @ApiOperation(value = "Get topic by Id ")
     @ApiResponses(value = {
             @ApiResponse(code = 200, message = "Successfully retrieved topic", response = Topic.class),
             @ApiResponse(code = 401, message = "Not authorized"),
             @ApiResponse(code = 500, message = "Internal Server Error")
     })
+    @Transactional(readOnly = true)
     @GetMapping(value = "/topic/{topicid}", produces = "application/json")
     public ResponseEntity<?> getTopicById(Authentication authentication, @PathVariable Long topicid) {
         Topic myTopic = topicService.findTopicById(topicid);
-        List<Survey> surveyRequests = myTopic.getSurveysrequests();
-        for (Survey surveyRequest : surveyRequests) {
-            helperFunctions.hasResponded(surveyRequest, userService.findByOKTAUserName(authentication.getName()));
-        }
+        fetchPlans.topic(myTopic);
+        helperFunctions.hasResponded(myTopic.getSurveysrequests(), userService.findPrincipal(authentication.getName()));
         return new ResponseEntity<>(myTopic, HttpStatus.OK);
     }
 
+    @ApiOperation(value = "Get the latest survey requests of a topic, newest first")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Successfully retrieved survey requests", response = Survey.class, responseContainer = "List"),
+            @ApiResponse(code = 401, message = "Not authorized"),
+            @ApiResponse(code = 500, message = "Internal Server Error")
+    })
+    @Transactional(readOnly = true)
+    @GetMapping(value = "/topic/{topicid}/requests", produces = "application/json")
+    public ResponseEntity<?> getLatestRequests(Authentication authentication, @PathVariable long topicid,
+                                               @RequestParam(required = false) Integer limit) {
+        List<Survey> requests = surveyService.findLatestRequests(topicid, limit);
+        fetchPlans.surveys(requests);
+        helperFunctions.hasResponded(requests, userService.findPrincipal(authentication.getName()));
+        return new ResponseEntity<>(requests, HttpStatus.OK);
+    }
+
+    @ApiOperation(value = "Export the responses to every survey request of a topic as NDJSON or CSV, oldest request first. Only the leader of the topic may export")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Successfully exported responses"),
+            @ApiResponse(code = 401, message = "Not authorized"),
+            @ApiResponse(code = 404, message = "Topic Not Found"),
+            @ApiResponse(code = 500, message = "Internal Server Error")
+    })
+    @Transactional(readOnly = true)
+    @GetMapping(value = "/topic/{topicid}/responses/export")
+    public void exportResponses(Authentication authentication, @PathVariable long topicid,
+                                @RequestParam(defaultValue = "ndjson") String format,
+                                HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat = ExportFormat.of(format);
+        User user = userService.findPrincipal(authentication.getName());
+        if (user.getUserid() != topicService.findTopicById(topicid).getOwner().getUserid()) {
+            throw new ResourceFoundException("Current user not authorized to make this request");
+        }
+
+        // rows go straight from the cursor to the response, which is committed as soon as its buffer fills
+        response.setContentType(exportFormat.getContentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Content-Disposition",
+                "attachment; filename=\"topic-" + topicid + "-responses." + exportFormat.getExtension() + "\"");
+        AnswerExportWriter writer = new AnswerExportWriter(exportFormat, response.getOutputStream());
+        answerService.exportByTopicId(topicid, writer);
+        writer.flush();
+    }
+
+    @ApiOperation(value = "Get the trend of each RATING, BOOL and MULTIPLE question of a topic per day, week or month. " +
+            "Defaults to the last year")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Successfully retrieved trends", response = TopicTrends.class),
+            @ApiResponse(code = 401, message = "Not authorized"),
+            @ApiResponse(code = 500, message = "Internal Server Error")
+    })
+    @Transactional(readOnly = true)
+    @GetMapping(value = "/topic/{topicid}/trends", produces = "application/json")
+    public ResponseEntity<?> getTrends(@PathVariable long topicid,
+                                       @RequestParam(defaultValue = "week") String granularity,
+                                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        RollupGranularity g = RollupGranularity.of(granularity);
+        LocalDate last = to == null ? LocalDate.now() : to;
+        LocalDate first = from == null ? last.minusYears(1) : from;
+        TopicTrends trends = topicRollupService.findTrends(topicid, g, g.periodStart(first), last);
+        return new ResponseEntity<>(trends, HttpStatus.OK);
+    }
+
+    @ApiOperation(value = "Recompute the trends of a topic from all of its responses. Only the leader of the topic may rebuild")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Successfully rebuilt trends"),
+            @ApiResponse(code = 401, message = "Not authorized"),
+            @ApiResponse(code = 404, message = "Topic Not Found"),
+            @ApiResponse(code = 500, message = "Internal Server Error")
+    })
+    @Transactional
+    @PostMapping(value = "/topic/{topicid}/trends/rebuild")
+    public ResponseEntity<?> rebuildTrends(@PathVariable long topicid, Authentication authentication) {
+        User user = userService.findPrincipal(authentication.getName());
+        if (user.getUserid() != topicService.findTopicById(topicid).getOwner().getUserid()) {
+            throw new ResourceFoundException("Current user not authorized to make this request");
+        }
+        topicRollupService.rebuild(topicid);
+        return new ResponseEntity<>(null, HttpStatus.OK);
+    }
+
     @ApiOperation(value = "Join topic by the join code")
     @ApiResponses(value = {
             @ApiResponse(code = 200, message = "Successfully joined topic", response = Topic.class),
@@ -100,11 +228,10 @@ public class TopicController {
     @PostMapping(value = "/topic/{code}", produces = "application/json")
     public ResponseEntity<?> userJoinTopic(@PathVariable String code, Authentication authentication) throws URISyntaxException {
 
-        Topic topic = topicService.findByJoinCode(code);
-
-        User user = userService.findByOKTAUserName(authentication.getName());
+        User user = userService.findPrincipal(authentication.getName());
 
-        topicService.addTopicUser(topic.getTopicId(), user.getUserid());
+        Topic topic = topicService.joinTopic(code, user.getUserid());
+        fetchPlans.topic(topic);
 
         return new ResponseEntity<>(topic, HttpStatus.CREATED);
     }
@@ -119,10 +246,11 @@ public class TopicController {
     @PostMapping(value = "/new", consumes = "application/json", produces = "application/json")
     public ResponseEntity<?> createTopic(@RequestBody Topic newtopic, Authentication authentication) throws URISyntaxException {
         newtopic.setTopicId(0);
-        User user = userService.findByOKTAUserName(authentication.getName());
+        User user = userService.findPrincipal(authentication.getName());
         newtopic.setOwner(user);
         newtopic.getDefaultsurvey().setSurveyid(0);
         newtopic = topicService.save(newtopic);
+        fetchPlans.topic(newtopic);
 
         return new ResponseEntity<>(newtopic, HttpStatus.CREATED);
     }
@@ -131,7 +259,7 @@ public class TopicController {
     @DeleteMapping(value = "/leave/{topicid}")
     public ResponseEntity<?> leaveTopic(@PathVariable long topicid,
                                         Authentication authentication) {
-        topicService.deleteTopicUser(topicid, userService.findByOKTAUserName(authentication.getName()).getUserid());
+        topicService.deleteTopicUser(topicid, userService.findPrincipal(authentication.getName()).getUserid());
         return new ResponseEntity<>(null, HttpStatus.GONE);
     }
 
@@ -145,7 +273,7 @@ public class TopicController {
     @DeleteMapping(value = "/topic/{topicid}")
     public ResponseEntity<?> deleteTopic(@PathVariable long topicid,
                                          Authentication authentication) {
-        User user = userService.findByOKTAUserName(authentication.getName());
+        User user = userService.findPrincipal(authentication.getName());
         topicService.delete(topicid, user);
         return new ResponseEntity<>(null, HttpStatus.OK);
     }
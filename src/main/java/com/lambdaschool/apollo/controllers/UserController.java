@@ -2,7 +2,9 @@ package com.lambdaschool.apollo.controllers;
 
 import com.lambdaschool.apollo.models.ErrorDetail;
 import com.lambdaschool.apollo.models.User;
+import com.lambdaschool.apollo.services.FetchPlans;
 import com.lambdaschool.apollo.services.UserService;
+import com.lambdaschool.apollo.views.KeysetPage;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
 import io.swagger.annotations.ApiResponse;
@@ -13,6 +15,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
@@ -33,6 +36,9 @@ public class UserController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private FetchPlans fetchPlans;
+
     /**
      * Returns a list of all users
      * <br>Example: <a href="http://localhost:2019/users/users">http://localhost:2019/users/users</a>
@@ -43,14 +49,46 @@ public class UserController {
     @ApiOperation(value = "returns all Users",
             response = User.class,
             responseContainer = "List")
+    @Transactional(readOnly = true)
     @GetMapping(value = "/users",
             produces = {"application/json"})
     public ResponseEntity<?> listAllUsers() {
         List<User> myUsers = userService.findAll();
+        fetchPlans.users(myUsers);
         return new ResponseEntity<>(myUsers,
                 HttpStatus.OK);
     }
 
+    /**
+     * Returns one page of users, ordered by user id
+     * <br>Example: <a href="http://localhost:2019/users/users/page?after=0&size=50">http://localhost:2019/users/users/page?after=0&size=50</a>
+     *
+     * @param after The nextcursor of the previous page, 0 for the first page
+     * @param size  The number of users per page, capped at 500
+     * @param name  Optional substring of the username of the users you seek
+     * @return JSON page of users with the cursor for the next page, with a status of OK
+     * @see UserService#findPage(long, Integer, String) UserService.findPage(long, Integer, String)
+     */
+    @ApiOperation(value = "returns one page of Users",
+            response = KeysetPage.class)
+    @Transactional(readOnly = true)
+    @GetMapping(value = "/users/page",
+            produces = {"application/json"})
+    public ResponseEntity<?> listUsersPage(
+            @RequestParam(defaultValue = "0")
+                    long after,
+            @RequestParam(required = false)
+                    Integer size,
+            @RequestParam(required = false)
+                    String name) {
+        KeysetPage<User> page = userService.findPage(after,
+                size,
+                name);
+        fetchPlans.users(page.getItems());
+        return new ResponseEntity<>(page,
+                HttpStatus.OK);
+    }
+
     /**
      * Returns a single user based off a user id number
      * <br>Example: <a href="http://localhost:2019/users/user/7">http://localhost:2019/users/user/7</a>
@@ -66,6 +104,7 @@ public class UserController {
             response = User.class), @ApiResponse(code = 404,
             message = "User Not Found",
             response = ErrorDetail.class)})
+    @Transactional(readOnly = true)
     @GetMapping(value = "/user/{userId}",
             produces = {"application/json"})
     public ResponseEntity<?> getUserById(
@@ -75,6 +114,7 @@ public class UserController {
             @PathVariable
                     Long userId) {
         User u = userService.findUserById(userId);
+        fetchPlans.user(u);
         return new ResponseEntity<>(u,
                 HttpStatus.OK);
     }
@@ -94,6 +134,7 @@ public class UserController {
             response = User.class), @ApiResponse(code = 404,
             message = "User Not Found",
             response = ErrorDetail.class)})
+    @Transactional(readOnly = true)
     @GetMapping(value = "/user/name/{userName}",
             produces = {"application/json"})
     public ResponseEntity<?> getUserByName(
@@ -103,6 +144,7 @@ public class UserController {
             @PathVariable
                     String userName) {
         User u = userService.findByName(userName);
+        fetchPlans.user(u);
         return new ResponseEntity<>(u,
                 HttpStatus.OK);
     }
@@ -121,12 +163,14 @@ public class UserController {
     @ApiParam(value = "User Name Substring",
             required = true,
             example = "john")
+    @Transactional(readOnly = true)
     @GetMapping(value = "/user/name/like/{userName}",
             produces = {"application/json"})
     public ResponseEntity<?> getUserLikeName(
             @PathVariable
                     String userName) {
         List<User> u = userService.findByNameContaining(userName);
+        fetchPlans.users(u);
         return new ResponseEntity<>(u,
                 HttpStatus.OK);
     }
@@ -346,10 +390,12 @@ public class UserController {
      */
     @ApiOperation(value = "returns the currently authenticated user",
             response = User.class)
+    @Transactional(readOnly = true)
     @GetMapping(value = "/getuserinfo",
             produces = {"application/json"})
     public ResponseEntity<?> getCurrentUserInfo(Authentication authentication) {
         User u = userService.findByOKTAUserName(authentication.getName());
+        fetchPlans.user(u);
         return new ResponseEntity<>(u,
                 HttpStatus.OK);
     }
@@ -0,0 +1,127 @@
+package com.lambdaschool.apollo.handlers;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.lambdaschool.apollo.views.AnswerRow;
+import com.lambdaschool.apollo.views.ExportFormat;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.function.Consumer;
+
+/**
+ * Writes survey responses to an output stream one row at a time, as NDJSON (one JSON object per line)
+ * or as CSV with a header line. Nothing is kept after a row is written, so an export of any size
+ * uses the same amount of memory. Dates are written as ISO 8601 instants.
+ */
+public class AnswerExportWriter implements Consumer<AnswerRow> {
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private static final String[] COLUMNS = {"surveyid", "requestdate", "questionid", "question", "leader",
+            "userid", "username", "answerid", "answer", "answereddate"};
+
+    private final ExportFormat format;
+    private final Writer writer;
+    private final JsonGenerator json;
+
+    public AnswerExportWriter(ExportFormat format, OutputStream out) throws IOException {
+        this.format = format;
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (format == ExportFormat.NDJSON) {
+            json = JSON.createGenerator(writer);
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+            json.setRootValueSeparator(null);
+        } else {
+            json = null;
+            writer.write(String.join(",", COLUMNS));
+            writer.write("\r\n");
+        }
+    }
+
+    @Override
+    public void accept(AnswerRow row) {
+        try {
+            if (format == ExportFormat.NDJSON) {
+                writeJson(row);
+            } else {
+                writeCsv(row);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes out whatever is still buffered. The output stream itself is left open.
+     */
+    public void flush() throws IOException {
+        if (json != null) {
+            json.flush();
+        }
+        writer.flush();
+    }
+
+    private void writeJson(AnswerRow row) throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("surveyid", row.getSurveyid());
+        json.writeStringField("requestdate", iso(row.getRequestdate()));
+        json.writeNumberField("questionid", row.getQuestionid());
+        json.writeStringField("question", row.getQuestion());
+        json.writeBooleanField("leader", row.getLeader());
+        json.writeNumberField("userid", row.getUserid());
+        json.writeStringField("username", row.getUsername());
+        json.writeNumberField("answerid", row.getAnswerid());
+        json.writeStringField("answer", row.getAnswer());
+        json.writeStringField("answereddate", iso(row.getAnswereddate()));
+        json.writeEndObject();
+        json.flush();
+        writer.write('\n');
+    }
+
+    private void writeCsv(AnswerRow row) throws IOException {
+        writer.write(Long.toString(row.getSurveyid()));
+        writer.write(',');
+        writer.write(csv(iso(row.getRequestdate())));
+        writer.write(',');
+        writer.write(Long.toString(row.getQuestionid()));
+        writer.write(',');
+        writer.write(csv(row.getQuestion()));
+        writer.write(',');
+        writer.write(Boolean.toString(row.getLeader()));
+        writer.write(',');
+        writer.write(Long.toString(row.getUserid()));
+        writer.write(',');
+        writer.write(csv(row.getUsername()));
+        writer.write(',');
+        writer.write(Long.toString(row.getAnswerid()));
+        writer.write(',');
+        writer.write(csv(row.getAnswer()));
+        writer.write(',');
+        writer.write(csv(iso(row.getAnswereddate())));
+        writer.write("\r\n");
+    }
+
+    private static String iso(Date date) {
+        return date == null ? null : date.toInstant().toString();
+    }
+
+    /**
+     * Quotes a field as RFC 4180 asks when it holds a comma, quote or line break
+     */
+    static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
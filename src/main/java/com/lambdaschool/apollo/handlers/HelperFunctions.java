@@ -3,8 +3,6 @@ package com.lambdaschool.apollo.handlers;
 import com.lambdaschool.apollo.exceptions.ResourceNotFoundException;
 import com.lambdaschool.apollo.models.*;
 import com.lambdaschool.apollo.services.AnswerService;
-import com.lambdaschool.apollo.services.QuestionService;
-import org.hashids.Hashids;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -13,9 +11,10 @@ import org.springframework.stereotype.Component;
 
 import javax.validation.ConstraintViolation;
 import javax.validation.ConstraintViolationException;
-import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Class contains helper functions - functions that are needed throughout the application. The class can be autowired
@@ -27,9 +26,6 @@ public class HelperFunctions {
     @Autowired
     private AnswerService answerService;
 
-    @Autowired
-    private QuestionService questionService;
-
     /**
      * Checks to see if the authenticated user has access to modify the requested user's information
      *
@@ -86,46 +82,32 @@ public class HelperFunctions {
         return listVE;
     }
 
-    public String getNewJoinCode() {
-
-        // current timestamp
-        Timestamp timestamp = new Timestamp(System.currentTimeMillis());
-        // create new hash using secret HASHSALT
-        Hashids hashids = new Hashids(System.getenv("HASHSALT"));
-        // use current timestamp in millis as encode body
-        String newJoinCode = hashids.encode(timestamp.getTime());
-
-        return newJoinCode;
-    }
-
+    /**
+     * Marks the survey as responded if the user has answered any of its questions
+     *
+     * @param survey The survey (request) to mark
+     * @param user   The user whose responses we are looking for
+     */
     public void hasResponded(Survey survey, User user) {
-        List<Question> questions;
-        questions = questionService.findAllBySurveyId(survey.getSurveyid());
+        hasResponded(Collections.singletonList(survey), user);
+    }
 
-        for (Question q : questions) {
-            if (answerService.findByQuestionIdAndUserId(q.getQuestionid(), user.getUserid()) != null) {
-                survey.setHasResponded(true);
-                break;
-            } else {
-                continue;
-            }
+    /**
+     * Marks each survey as responded if the user has answered any of its questions.
+     * All of the surveys are resolved with a single query, no matter how many there are.
+     *
+     * @param surveys The surveys (requests) to mark
+     * @param user    The user whose responses we are looking for
+     */
+    public void hasResponded(List<Survey> surveys, User user) {
+        List<Long> surveyIds = new ArrayList<>();
+        for (Survey s : surveys) {
+            surveyIds.add(s.getSurveyid());
         }
-    }
 
-    public void hasResponded(List<Survey> surveys,  User user) {
-        List<Question> questions;
+        Set<Long> responded = answerService.findRespondedSurveyIds(surveyIds, user.getUserid());
         for (Survey s : surveys) {
-            // only get questions that are associated with the survey
-            questions = questionService.findAllBySurveyId(s.getSurveyid());
-            // if the user has is tied to an answer that lives in questions than
-            // has responded is set to true
-            for (Question q : questions) {
-                for (Answer a : q.getAnswers()) {
-                    if (a.getUser() == user) {
-                        s.setHasResponded(true);
-                    }
-                }
-            }
+            s.setHasResponded(responded.contains(s.getSurveyid()));
         }
     }
 
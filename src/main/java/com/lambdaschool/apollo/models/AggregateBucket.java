@@ -0,0 +1,72 @@
+package com.lambdaschool.apollo.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import javax.persistence.*;
+
+/**
+ * One histogram bucket of a QuestionAggregate: the number of answers with a given rating, the true or false
+ * count of a BOOL question, or how often an option of a MULTIPLE question was chosen
+ */
+@Entity
+@Table(name = "aggregatebuckets", uniqueConstraints = {@UniqueConstraint(columnNames = {"questionid", "label"})})
+public class AggregateBucket {
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private long bucketid;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "questionid", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @JsonIgnore
+    private Question question;
+
+    /**
+     * The rating, true or false, or the option as answered
+     */
+    @Column(nullable = false)
+    private String label;
+
+    /**
+     * The numeric value of the bucket, used to order buckets. Null for MULTIPLE options
+     */
+    private Double bucketvalue;
+
+    @Column(nullable = false)
+    private long answercount;
+
+    public AggregateBucket() {
+    }
+
+    public AggregateBucket(Question question, String label, Double bucketvalue) {
+        this.question = question;
+        this.label = label;
+        this.bucketvalue = bucketvalue;
+    }
+
+    public long getBucketid() {
+        return bucketid;
+    }
+
+    public Question getQuestion() {
+        return question;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public Double getBucketvalue() {
+        return bucketvalue;
+    }
+
+    public long getAnswercount() {
+        return answercount;
+    }
+
+    public void setAnswercount(long answercount) {
+        this.answercount = answercount;
+    }
+}
@@ -6,7 +6,9 @@ import com.sun.istack.NotNull;
 import javax.persistence.*;
 
 @Entity
-@Table(name = "answers")
+@Table(name = "answers",
+        uniqueConstraints = {@UniqueConstraint(name = "answers_questionid_userid_key", columnNames = {"questionid", "userid"})},
+        indexes = {@Index(name = "answers_userid_surveyid_idx", columnList = "userid, surveyid")})
 @JsonIgnoreProperties(value = {"survey"}, allowSetters = true)
 public class Answer extends Auditable{
     @Id
@@ -0,0 +1,39 @@
+package com.lambdaschool.apollo.models;
+
+import javax.persistence.*;
+import java.util.Date;
+
+/**
+ * A running instance of the API that takes part in background jobs. The instances whose heartbeat is recent
+ * share the shards of every job between them, see LeaseService. Written by LeaseService only.
+ */
+@Entity
+@Table(name = "appinstances")
+public class AppInstance {
+    @Id
+    @Column(length = 100)
+    private String instanceid;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(nullable = false)
+    private Date heartbeatat;
+
+    public AppInstance() {
+    }
+
+    public String getInstanceid() {
+        return instanceid;
+    }
+
+    public void setInstanceid(String instanceid) {
+        this.instanceid = instanceid;
+    }
+
+    public Date getHeartbeatat() {
+        return heartbeatat;
+    }
+
+    public void setHeartbeatat(Date heartbeatat) {
+        this.heartbeatat = heartbeatat;
+    }
+}
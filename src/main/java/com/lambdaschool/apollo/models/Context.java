@@ -102,6 +102,15 @@ public class Context extends Auditable {
         this.description = description.toLowerCase();
     }
 
+    /**
+     * Getter for the questions of this context
+     *
+     * @return the questions (List) connected to the context
+     */
+    public List<Question> getContextquestions() {
+        return contextquestions;
+    }
+
     /**
      * Getter for survey
      *
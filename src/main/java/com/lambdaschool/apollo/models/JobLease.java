@@ -0,0 +1,76 @@
+package com.lambdaschool.apollo.models;
+
+import javax.persistence.*;
+import java.util.Date;
+
+/**
+ * One shard of a background job and the instance that runs it. A job that must run on one instance only
+ * has a single shard. An instance holds its shards until expiresat, which its heartbeat keeps pushing out;
+ * once that passes, the shard is free for another instance to claim. Written by LeaseService only.
+ */
+@Entity
+@Table(name = "jobleases",
+        uniqueConstraints = {@UniqueConstraint(name = "jobleases_job_shard_key", columnNames = {"job", "shard"})})
+public class JobLease {
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private long leaseid;
+
+    @Column(nullable = false, length = 100)
+    private String job;
+
+    @Column(nullable = false)
+    private int shard;
+
+    /**
+     * The instance id of the holder, null while the shard is free
+     */
+    @Column(length = 100)
+    private String holder;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date expiresat;
+
+    public JobLease() {
+    }
+
+    public long getLeaseid() {
+        return leaseid;
+    }
+
+    public void setLeaseid(long leaseid) {
+        this.leaseid = leaseid;
+    }
+
+    public String getJob() {
+        return job;
+    }
+
+    public void setJob(String job) {
+        this.job = job;
+    }
+
+    public int getShard() {
+        return shard;
+    }
+
+    public void setShard(int shard) {
+        this.shard = shard;
+    }
+
+    public String getHolder() {
+        return holder;
+    }
+
+    public void setHolder(String holder) {
+        this.holder = holder;
+    }
+
+    public Date getExpiresat() {
+        return expiresat;
+    }
+
+    public void setExpiresat(Date expiresat) {
+        this.expiresat = expiresat;
+    }
+}
@@ -13,7 +13,8 @@ import java.util.List;
 
 @ApiModel(value = "Question", description = "Question model")
 @Entity
-@Table(name = "questions")
+@Table(name = "questions",
+        indexes = {@Index(name = "questions_templateid_idx", columnList = "templateid")})
 public class Question extends Auditable {
 
     /**
@@ -25,11 +26,18 @@ public class Question extends Auditable {
     private long questionid;
 
     /**
-     * The body (String) describes the question. Cannot be null
+     * The text and type this question shares with every other time it is asked, null for questions
+     * that were given a text of their own
+     */
+    @ManyToOne
+    @JoinColumn(name = "templateid")
+    @JsonIgnore
+    private QuestionTemplate template;
+
+    /**
+     * The body (String) describes the question. Only stored when it differs from the template, see getBody
      */
     @ApiModelProperty(name = "body", value = "question body")
-    @NotNull
-    @Column(nullable = false)
     private String body;
 
     /**
@@ -98,6 +106,21 @@ public class Question extends Auditable {
         this.answers = new ArrayList<>();
     }
 
+    /**
+     * Given the params, create a new question object that asks the question of a template
+     *
+     * @param template The template (QuestionTemplate) giving the body and type of the question
+     * @param isLeader The isLeader (boolean) of the question
+     * @param survey   The survey (Survey) connected to the question
+     */
+    public Question(QuestionTemplate template, boolean isLeader, Survey survey) {
+        setTemplate(template);
+        setLeader(isLeader);
+        setType(template.getType());
+        setSurvey(survey);
+        this.answers = new ArrayList<>();
+    }
+
     /**
      * Getter for questionid
      *
@@ -119,14 +142,17 @@ public class Question extends Auditable {
     /**
      * Getter for body
      *
-     * @return the body (String) of the question
+     * @return the body (String) of the question: its own text if it has one, otherwise the text of its template
      */
     public String getBody() {
+        if (body == null && template != null) {
+            return template.getBody();
+        }
         return body;
     }
 
     /**
-     * Setter for body. Used primary for seeding data
+     * Setter for body. Gives the question a text of its own, which overrides the text of its template
      *
      * @param body the new body (String) of the question
      */
@@ -134,6 +160,14 @@ public class Question extends Auditable {
         this.body = body;
     }
 
+    public QuestionTemplate getTemplate() {
+        return template;
+    }
+
+    public void setTemplate(QuestionTemplate template) {
+        this.template = template;
+    }
+
     /**
      * Getter for isLeader
      *
@@ -190,7 +224,7 @@ public class Question extends Auditable {
     public String toString() {
         return "Question{" +
                 "questionid=" + questionid +
-                ", body='" + body + '\'' +
+                ", body='" + getBody() + '\'' +
                 ", isLeader=" + isLeader +
                 ", type=" + type +
                 ", contexts=" + contexts +
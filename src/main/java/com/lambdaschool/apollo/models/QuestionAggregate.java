@@ -0,0 +1,102 @@
+package com.lambdaschool.apollo.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import javax.persistence.*;
+
+/**
+ * Running totals of the answers to a RATING, BOOL or MULTIPLE question, kept up to date as answers are saved
+ * so results can be read without going through the answers. The histogram is kept in AggregateBucket rows.
+ * <p>
+ * total, minimum and maximum cover the answers that have a numeric value: the rating for RATING,
+ * 1 or 0 for BOOL. MULTIPLE answers are only counted. The rows go away with their question.
+ */
+@Entity
+@Table(name = "questionaggregates")
+public class QuestionAggregate {
+    @Id
+    private long questionid;
+
+    @MapsId
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "questionid")
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @JsonIgnore
+    private Question question;
+
+    /**
+     * Every answer to the question, including those without a numeric value
+     */
+    @Column(nullable = false)
+    private long answercount;
+
+    /**
+     * The answers with a numeric value
+     */
+    @Column(nullable = false)
+    private long valuecount;
+
+    @Column(nullable = false)
+    private double total;
+
+    private Double minimum;
+
+    private Double maximum;
+
+    public QuestionAggregate() {
+    }
+
+    public QuestionAggregate(Question question) {
+        this.question = question;
+    }
+
+    public long getQuestionid() {
+        return questionid;
+    }
+
+    public Question getQuestion() {
+        return question;
+    }
+
+    public long getAnswercount() {
+        return answercount;
+    }
+
+    public void setAnswercount(long answercount) {
+        this.answercount = answercount;
+    }
+
+    public long getValuecount() {
+        return valuecount;
+    }
+
+    public void setValuecount(long valuecount) {
+        this.valuecount = valuecount;
+    }
+
+    public double getTotal() {
+        return total;
+    }
+
+    public void setTotal(double total) {
+        this.total = total;
+    }
+
+    public Double getMinimum() {
+        return minimum;
+    }
+
+    public void setMinimum(Double minimum) {
+        this.minimum = minimum;
+    }
+
+    public Double getMaximum() {
+        return maximum;
+    }
+
+    public void setMaximum(Double maximum) {
+        this.maximum = maximum;
+    }
+}
@@ -0,0 +1,90 @@
+package com.lambdaschool.apollo.models;
+
+import com.lambdaschool.apollo.views.QuestionType;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.*;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * The text and type of a question, stored once however many surveys ask it. Questions point at their template
+ * instead of carrying a copy of the text, so asking the same question in every survey request of every topic adds
+ * a narrow row per request, and all the times a question was asked share one templateid.
+ * <p>
+ * Templates never change: a template is found by the hash of its content, and a question whose text is edited
+ * keeps its template and overrides the text, see Question.getBody. Templates are created by QuestionTemplateService.
+ */
+@Entity
+@Immutable
+@BatchSize(size = 100)
+@Table(name = "questiontemplates",
+        uniqueConstraints = {@UniqueConstraint(name = "questiontemplates_hash_key", columnNames = {"hash"})})
+public class QuestionTemplate {
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private long templateid;
+
+    /**
+     * SHA-256 of the type and body in hex, see hash
+     */
+    @Column(nullable = false, length = 64)
+    private String hash;
+
+    @Column(nullable = false)
+    private String body;
+
+    @Column(nullable = false)
+    private QuestionType type;
+
+    public QuestionTemplate() {
+    }
+
+    /**
+     * The content of a template, to look up or create the stored one with QuestionTemplateService.intern
+     *
+     * @param body The body (String) of the question
+     * @param type The type of the question
+     */
+    public QuestionTemplate(String body, QuestionType type) {
+        this.hash = hash(body, type);
+        this.body = body;
+        this.type = type;
+    }
+
+    public long getTemplateid() {
+        return templateid;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public QuestionType getType() {
+        return type;
+    }
+
+    /**
+     * @return The hash the template with the given content is stored under
+     */
+    public static String hash(String body, QuestionType type) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] bytes = digest.digest((type.name() + '\n' + body).getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(bytes.length * 2);
+            for (byte b : bytes) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // every Java runtime has SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -2,16 +2,20 @@ package com.lambdaschool.apollo.models;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import io.swagger.annotations.ApiModel;
 import io.swagger.annotations.ApiModelProperty;
 
 import javax.persistence.*;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
 @ApiModel(value = "Survey", description = "This entity is a combination of surveys and survey requests")
 @Entity
-@Table(name = "surveys")
+@Table(name = "surveys",
+        indexes = {@Index(name = "surveys_topicid_created_date_idx", columnList = "topicid, createdDate DESC")},
+        uniqueConstraints = {@UniqueConstraint(name = "surveys_topicid_requestperiod_key", columnNames = {"topicid", "requestperiod"})})
 public class Survey extends Auditable {
 
     /**
@@ -28,6 +32,15 @@ public class Survey extends Auditable {
     @JsonIgnoreProperties(value = {"surveysrequests", "owner", "defaultsurvey", "users", "frequency"}, allowSetters = true)
     private Topic topic;
 
+    /**
+     * The day a scheduled survey request was due on. One request per topic and day at most,
+     * so the scheduler can run again or on several instances without sending a request twice.
+     * Null for requests sent by hand and for default surveys.
+     */
+    @ApiModelProperty(name = "Request period", value = "Day this scheduled survey request was due on", allowEmptyValue = true)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private LocalDate requestperiod;
+
     @ApiModelProperty(name = "Topic id", value = "Topic id ")
     @OneToMany(mappedBy = "defaultsurvey", cascade = CascadeType.ALL)
     @JsonIgnore
@@ -52,6 +65,14 @@ public class Survey extends Auditable {
         this.topic = topic;
     }
 
+    public LocalDate getRequestperiod() {
+        return requestperiod;
+    }
+
+    public void setRequestperiod(LocalDate requestperiod) {
+        this.requestperiod = requestperiod;
+    }
+
     public Topic getTopic() {
         return topic;
     }
@@ -1,6 +1,7 @@
 package com.lambdaschool.apollo.models;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.lambdaschool.apollo.views.TopicFrequency;
 import io.swagger.annotations.ApiModel;
 import io.swagger.annotations.ApiModelProperty;
@@ -8,11 +9,13 @@ import io.swagger.annotations.ApiModelProperty;
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 
 @ApiModel(value = "Topic", description = "Topic model")
 @Entity
-@Table(name = "topics")
+@Table(name = "topics",
+        indexes = {@Index(name = "topics_nextrequestdate_idx", columnList = "nextrequestdate")})
 public class Topic extends Auditable {
 
     /**
@@ -41,6 +44,15 @@ public class Topic extends Auditable {
     @ApiModelProperty(name = "Frequency", value = "Topic Frequency", example = "Daily")
     private TopicFrequency frequency;
 
+    /**
+     * When the scheduler sends the next survey request, null if the topic has no frequency.
+     * Set by the topic service whenever the frequency changes, see SurveyRequestScheduler
+     */
+    @ApiModelProperty(name = "Next request date", value = "When the next survey request is sent")
+    @Temporal(TemporalType.TIMESTAMP)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Date nextrequestdate;
+
     @ApiModelProperty(name = "Survey id", value = "Default Survey Id used for this topic")
     @ManyToOne(cascade = CascadeType.ALL)
     @JoinColumn(name = "surveyid")
@@ -48,11 +60,13 @@ public class Topic extends Auditable {
     private Survey defaultsurvey;
 
     @ApiModelProperty(name = "Join code", value = "Join code for this topic", example = "xt23sRvxD")
+    @Column(unique = true)
     private String joincode;
 
     //Survey Requests that an owner of a topic has generated
     @ApiModelProperty(name = "Survery Request id", value = "Survey requested using this topic")
     @OneToMany(mappedBy = "topic", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("createdDate DESC")
     @JsonIgnoreProperties(value = {"topic", "defaulttopic"}, allowSetters = true)
     private List<Survey> surveysrequests = new ArrayList<>();
 
@@ -103,9 +117,10 @@ public class Topic extends Auditable {
         this.owner = owner;
     }
 
+    /**
+     * @return The survey requests of this topic, newest first as loaded from the database
+     */
     public List<Survey> getSurveysrequests() {
-
-        surveysrequests.sort((Survey s1, Survey s2) ->s2.getCreatedDate().compareTo(s1.getCreatedDate()));
         return surveysrequests;
     }
 
@@ -133,6 +148,14 @@ public class Topic extends Auditable {
         this.frequency = frequency;
     }
 
+    public Date getNextrequestdate() {
+        return nextrequestdate;
+    }
+
+    public void setNextrequestdate(Date nextrequestdate) {
+        this.nextrequestdate = nextrequestdate;
+    }
+
     public String getJoincode() {
         return joincode;
     }
@@ -0,0 +1,144 @@
+package com.lambdaschool.apollo.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.lambdaschool.apollo.views.QuestionType;
+import com.lambdaschool.apollo.views.RollupGranularity;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * Running totals of the answers to one question of a topic over one day, week or month, across all of
+ * the topic's survey requests. Requests copy their questions from the default survey, so a question is
+ * identified by its body and type rather than by id. Answers count towards the period their request was
+ * sent in.
+ * <p>
+ * The unique constraint doubles as the index trend charts read with a single range scan over periodstart.
+ * The rows go away with their topic.
+ */
+@Entity
+@Table(name = "topicrollups",
+        uniqueConstraints = {@UniqueConstraint(name = "topicrollups_period_idx",
+                columnNames = {"topicid", "granularity", "periodstart", "questionbody", "type"})})
+public class TopicRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private long rollupid;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "topicid", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @JsonIgnore
+    private Topic topic;
+
+    @Column(nullable = false)
+    private RollupGranularity granularity;
+
+    /**
+     * The first day of the period
+     */
+    @Column(nullable = false)
+    private LocalDate periodstart;
+
+    @Column(nullable = false)
+    private String questionbody;
+
+    @Column(nullable = false)
+    private QuestionType type;
+
+    /**
+     * Every answer in the period, including those without a numeric value
+     */
+    @Column(nullable = false)
+    private long answercount;
+
+    /**
+     * The answers with a numeric value
+     */
+    @Column(nullable = false)
+    private long valuecount;
+
+    @Column(nullable = false)
+    private double total;
+
+    private Double minimum;
+
+    private Double maximum;
+
+    public TopicRollup() {
+    }
+
+    public TopicRollup(Topic topic, RollupGranularity granularity, LocalDate periodstart, String questionbody, QuestionType type) {
+        this.topic = topic;
+        this.granularity = granularity;
+        this.periodstart = periodstart;
+        this.questionbody = questionbody;
+        this.type = type;
+    }
+
+    public long getRollupid() {
+        return rollupid;
+    }
+
+    public Topic getTopic() {
+        return topic;
+    }
+
+    public RollupGranularity getGranularity() {
+        return granularity;
+    }
+
+    public LocalDate getPeriodstart() {
+        return periodstart;
+    }
+
+    public String getQuestionbody() {
+        return questionbody;
+    }
+
+    public QuestionType getType() {
+        return type;
+    }
+
+    public long getAnswercount() {
+        return answercount;
+    }
+
+    public void setAnswercount(long answercount) {
+        this.answercount = answercount;
+    }
+
+    public long getValuecount() {
+        return valuecount;
+    }
+
+    public void setValuecount(long valuecount) {
+        this.valuecount = valuecount;
+    }
+
+    public double getTotal() {
+        return total;
+    }
+
+    public void setTotal(double total) {
+        this.total = total;
+    }
+
+    public Double getMinimum() {
+        return minimum;
+    }
+
+    public void setMinimum(Double minimum) {
+        this.minimum = minimum;
+    }
+
+    public Double getMaximum() {
+        return maximum;
+    }
+
+    public void setMaximum(Double maximum) {
+        this.maximum = maximum;
+    }
+}
@@ -0,0 +1,30 @@
+package com.lambdaschool.apollo.repository;
+
+import com.lambdaschool.apollo.models.AggregateBucket;
+import com.lambdaschool.apollo.views.AggregateBucketRow;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface AggregateBucketRepository extends CrudRepository<AggregateBucket, Long> {
+
+    /**
+     * @param questionids The question ids. Must not be empty
+     * @return Every bucket of the given questions
+     */
+    @Query(value = "SELECT b FROM AggregateBucket b WHERE b.question.questionid IN :questionids")
+    List<AggregateBucket> findByQuestionIds(Collection<Long> questionids);
+
+    /**
+     * Reads the buckets of every question of a survey in a single query
+     *
+     * @param surveyid The survey id of the survey
+     * @return The buckets ordered by question, then by value and label
+     */
+    @Query(value = "SELECT b.question.questionid AS questionid, b.label AS label, b.bucketvalue AS bucketvalue, " +
+            "b.answercount AS answercount FROM AggregateBucket b WHERE b.question.survey.surveyid = :surveyid " +
+            "ORDER BY b.question.questionid, b.bucketvalue, b.label")
+    List<AggregateBucketRow> findRowsBySurveyId(long surveyid);
+}
@@ -1,15 +1,83 @@
 package com.lambdaschool.apollo.repository;
 
 import com.lambdaschool.apollo.models.Answer;
+import com.lambdaschool.apollo.views.AnswerRow;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 public interface AnswerRepository extends CrudRepository<Answer, Long> {
 
-    List<Answer> findBySurvey_surveyid(long surveyid);
+    /**
+     * Rows the JDBC driver reads ahead while an export streams through its cursor
+     */
+    int EXPORT_FETCH_SIZE = 500;
+
+    String ANSWER_ROW_COLUMNS = "SELECT s.surveyid AS surveyid, s.createdDate AS requestdate, " +
+            "q.questionid AS questionid, COALESCE(q.body, t.body) AS question, q.type AS type, q.isLeader AS leader, " +
+            "u.userid AS userid, u.username AS username, " +
+            "a.answerid AS answerid, a.body AS answer, a.createdDate AS answereddate " +
+            "FROM Answer a JOIN a.survey s JOIN a.question q LEFT JOIN q.template t JOIN a.user u ";
+
+    /**
+     * All answers, each read with its question, user and survey
+     *
+     * @return Every answer
+     */
+    @Override
+    @EntityGraph(attributePaths = {"question", "question.template", "user", "survey", "survey.topic", "survey.topic.owner", "survey.topic.defaultsurvey"})
+    Iterable<Answer> findAll();
+
+    /**
+     * The answers to a survey, each read with its question and its template, user and survey in the same query
+     *
+     * @param surveyid The survey id of the survey
+     * @return The answers ordered by answer id
+     */
+    @Query(value = "SELECT a FROM Answer a LEFT JOIN FETCH a.question q LEFT JOIN FETCH q.template LEFT JOIN FETCH a.user JOIN FETCH a.survey s " +
+            "LEFT JOIN FETCH s.topic t LEFT JOIN FETCH t.owner LEFT JOIN FETCH t.defaultsurvey " +
+            "WHERE s.surveyid = :surveyid ORDER BY a.answerid")
+    List<Answer> findWithQuestionAndUserBySurveyId(long surveyid);
 
     @Query(value = "SELECT * FROM Answers WHERE questionid = :questionid AND userid = :userid", nativeQuery = true)
     Answer findAnswerByQuestionIdAndUserId(long questionid, long userid);
+
+    /**
+     * Finds which of the given surveys the given user has answered at least one question of
+     *
+     * @param userid    The user id of the user who may have answered
+     * @param surveyids The survey ids to check. Must not be empty
+     * @return The subset of the given survey ids that have an answer from the user
+     */
+    @Query(value = "SELECT DISTINCT a.survey.surveyid FROM Answer a WHERE a.user.userid = :userid AND a.survey.surveyid IN :surveyids")
+    List<Long> findRespondedSurveyIds(long userid, Collection<Long> surveyids);
+
+    /**
+     * Streams the answers to a survey as flat rows through a forward only cursor. No entities are loaded,
+     * so memory use does not grow with the number of answers. Has to be consumed and closed inside a transaction.
+     *
+     * @param surveyid The survey id of the survey
+     * @return The rows ordered by answer id
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE))
+    @Query(value = ANSWER_ROW_COLUMNS + "WHERE s.surveyid = :surveyid ORDER BY a.answerid")
+    Stream<AnswerRow> streamBySurveyId(long surveyid);
+
+    /**
+     * Streams the answers to every survey request of a topic as flat rows, the same way as streamBySurveyId
+     *
+     * @param topicid The topic id of the topic
+     * @return The rows ordered by survey request, oldest first, then by answer id
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE))
+    @Query(value = ANSWER_ROW_COLUMNS + "WHERE s.topic.topicId = :topicid ORDER BY s.createdDate, s.surveyid, a.answerid")
+    Stream<AnswerRow> streamByTopicId(long topicid);
 }
@@ -1,8 +1,34 @@
 package com.lambdaschool.apollo.repository;
 
 import com.lambdaschool.apollo.models.Context;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 
+import java.util.Collection;
+import java.util.List;
+
 public interface ContextRepository extends CrudRepository<Context, Long> {
+
+    /**
+     * All contexts, each read with its survey
+     *
+     * @return Every context
+     */
+    @Override
+    @EntityGraph(attributePaths = {"survey"})
+    Iterable<Context> findAll();
+
+    @EntityGraph(attributePaths = {"survey"})
     Context findContextByDescription(String description);
+
+    /**
+     * Fetches the questions of the given contexts, with each question's survey, into the contexts already loaded
+     *
+     * @param contextids The context ids of the contexts. Must not be empty
+     * @return The contexts with their questions initialized
+     */
+    @Query(value = "SELECT DISTINCT c FROM Context c LEFT JOIN FETCH c.contextquestions q LEFT JOIN FETCH q.survey s " +
+            "LEFT JOIN FETCH s.topic t LEFT JOIN FETCH t.owner LEFT JOIN FETCH t.defaultsurvey WHERE c.contextid IN :contextids")
+    List<Context> fetchQuestions(Collection<Long> contextids);
 }
@@ -0,0 +1,24 @@
+package com.lambdaschool.apollo.repository;
+
+import com.lambdaschool.apollo.models.QuestionAggregate;
+import com.lambdaschool.apollo.views.QuestionAggregateRow;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+
+import java.util.List;
+
+public interface QuestionAggregateRepository extends CrudRepository<QuestionAggregate, Long> {
+
+    /**
+     * Reads every question of a survey with its aggregate, if it has one, in a single query
+     *
+     * @param surveyid The survey id of the survey
+     * @return One row per question ordered by question id
+     */
+    @Query(value = "SELECT q.questionid AS questionid, COALESCE(q.body, t.body) AS body, q.type AS type, " +
+            "a.answercount AS answercount, a.valuecount AS valuecount, a.total AS total, " +
+            "a.minimum AS minimum, a.maximum AS maximum " +
+            "FROM Question q LEFT JOIN q.template t LEFT JOIN QuestionAggregate a ON a.questionid = q.questionid " +
+            "WHERE q.survey.surveyid = :surveyid ORDER BY q.questionid")
+    List<QuestionAggregateRow> findRowsBySurveyId(long surveyid);
+}
@@ -1,13 +1,89 @@
 package com.lambdaschool.apollo.repository;
 
 import com.lambdaschool.apollo.models.Question;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 
+import javax.persistence.LockModeType;
+import java.util.Collection;
 import java.util.List;
 
 public interface QuestionRepository extends CrudRepository<Question, Long> {
 
+    /**
+     * All questions, each read with its survey and the survey's topic
+     *
+     * @return Every question
+     */
+    @EntityGraph(attributePaths = {"template", "survey", "survey.topic", "survey.topic.owner", "survey.topic.defaultsurvey"})
     List<Question> findAll();
 
+    @EntityGraph(attributePaths = {"template", "survey", "survey.topic", "survey.topic.owner", "survey.topic.defaultsurvey"})
     List<Question> findAllBySurvey_Surveyid(long id);
+
+    /**
+     * Loads the given questions together with their template, survey, the survey's topic and the topic's owner in one query
+     *
+     * @param questionids The question ids of the questions you seek. Must not be empty
+     * @return The questions that exist, in no particular order
+     */
+    @Query(value = "SELECT q FROM Question q LEFT JOIN FETCH q.template JOIN FETCH q.survey s LEFT JOIN FETCH s.topic t " +
+            "LEFT JOIN FETCH t.owner LEFT JOIN FETCH t.defaultsurvey WHERE q.questionid IN :questionids")
+    List<Question> findWithTopicByQuestionidIn(Collection<Long> questionids);
+
+    /**
+     * Locks the given questions until the end of the transaction. The rows are locked in question id order,
+     * so two transactions locking overlapping sets of questions cannot deadlock.
+     *
+     * @param questionids The question ids of the questions to lock. Must not be empty
+     * @return The locked questions ordered by question id
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query(value = "SELECT q FROM Question q WHERE q.questionid IN :questionids ORDER BY q.questionid")
+    List<Question> lockByQuestionidIn(Collection<Long> questionids);
+
+    /**
+     * Keyset paginated list of questions
+     *
+     * @param after    Only questions with a question id greater than this are returned
+     * @param pageable Limits the number of questions returned
+     * @return Questions ordered by question id
+     */
+    @EntityGraph(attributePaths = {"template", "survey", "survey.topic", "survey.topic.owner", "survey.topic.defaultsurvey"})
+    List<Question> findByQuestionidGreaterThanOrderByQuestionidAsc(long after, Pageable pageable);
+
+    /**
+     * Keyset paginated list of the questions of a survey
+     *
+     * @param after    Only questions with a question id greater than this are returned
+     * @param surveyid The survey id of the survey the questions belong to
+     * @param pageable Limits the number of questions returned
+     * @return Questions ordered by question id
+     */
+    @EntityGraph(attributePaths = {"template", "survey", "survey.topic", "survey.topic.owner", "survey.topic.defaultsurvey"})
+    List<Question> findByQuestionidGreaterThanAndSurvey_SurveyidOrderByQuestionidAsc(long after, long surveyid, Pageable pageable);
+
+    /**
+     * Fetches the answers, and the users who gave them, of every question of the given surveys
+     * into the questions already loaded
+     *
+     * @param surveyids The survey ids of the surveys. Must not be empty
+     * @return The questions of the surveys with their answers initialized
+     */
+    @Query(value = "SELECT DISTINCT q FROM Question q LEFT JOIN FETCH q.answers a LEFT JOIN FETCH a.user " +
+            "WHERE q.survey.surveyid IN :surveyids")
+    List<Question> fetchAnswersBySurveyIds(Collection<Long> surveyids);
+
+    /**
+     * Fetches the answers, and the users who gave them, of the given questions into the questions already loaded
+     *
+     * @param questionids The question ids of the questions. Must not be empty
+     * @return The questions with their answers initialized
+     */
+    @Query(value = "SELECT DISTINCT q FROM Question q LEFT JOIN FETCH q.answers a LEFT JOIN FETCH a.user " +
+            "WHERE q.questionid IN :questionids")
+    List<Question> fetchAnswers(Collection<Long> questionids);
 }
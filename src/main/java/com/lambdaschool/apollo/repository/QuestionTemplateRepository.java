@@ -0,0 +1,20 @@
+package com.lambdaschool.apollo.repository;
+
+import com.lambdaschool.apollo.models.QuestionTemplate;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface QuestionTemplateRepository extends CrudRepository<QuestionTemplate, Long> {
+
+    /**
+     * Finds templates by the hash of their content, using questiontemplates_hash_key
+     *
+     * @param hashes The hashes of the templates you seek. Must not be empty
+     * @return The templates that exist, in no particular order
+     */
+    @Query(value = "SELECT t FROM QuestionTemplate t WHERE t.hash IN :hashes")
+    List<QuestionTemplate> findByHashIn(Collection<String> hashes);
+}
@@ -6,6 +6,9 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
+
 /**
  * The CRUD Repository connecting Role to the rest of the application
  */
@@ -19,6 +22,15 @@ public interface RoleRepository
      */
     Role findByNameIgnoreCase(String name);
 
+    /**
+     * Fetches the users of the given roles into the roles already loaded
+     *
+     * @param roleids The role ids of the roles. Must not be empty
+     * @return The roles with their users initialized
+     */
+    @Query(value = "SELECT DISTINCT r FROM Role r LEFT JOIN FETCH r.users ur LEFT JOIN FETCH ur.user WHERE r.roleid IN :roleids")
+    List<Role> fetchUsers(Collection<Long> roleids);
+
     /**
      * Updates the name of the role based on the given role id.
      *
@@ -1,7 +1,63 @@
 package com.lambdaschool.apollo.repository;
 
 import com.lambdaschool.apollo.models.Survey;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 
+import java.util.Collection;
+import java.util.List;
+
 public interface SurveyRepository extends CrudRepository<Survey, Long> {
+
+    /**
+     * All surveys, each read with its topic and the topic's owner and default survey
+     *
+     * @return Every survey
+     */
+    @Override
+    @EntityGraph(attributePaths = {"topic", "topic.owner", "topic.defaultsurvey"})
+    Iterable<Survey> findAll();
+
+    /**
+     * Keyset paginated list of surveys
+     *
+     * @param after    Only surveys with a survey id greater than this are returned
+     * @param pageable Limits the number of surveys returned
+     * @return Surveys ordered by survey id
+     */
+    @EntityGraph(attributePaths = {"topic", "topic.owner", "topic.defaultsurvey"})
+    List<Survey> findBySurveyidGreaterThanOrderBySurveyidAsc(long after, Pageable pageable);
+
+    /**
+     * Keyset paginated list of the survey requests of a topic
+     *
+     * @param after    Only surveys with a survey id greater than this are returned
+     * @param topicid  The topic id of the topic the requests belong to
+     * @param pageable Limits the number of surveys returned
+     * @return Surveys ordered by survey id
+     */
+    @EntityGraph(attributePaths = {"topic", "topic.owner", "topic.defaultsurvey"})
+    List<Survey> findBySurveyidGreaterThanAndTopic_topicIdOrderBySurveyidAsc(long after, long topicid, Pageable pageable);
+
+    /**
+     * The latest survey requests of a topic. Served by the (topicid, created_date) index
+     *
+     * @param topicid  The topic id of the topic the requests belong to
+     * @param pageable Limits the number of surveys returned
+     * @return Surveys newest first
+     */
+    @EntityGraph(attributePaths = {"topic", "topic.owner", "topic.defaultsurvey"})
+    List<Survey> findByTopic_topicIdOrderByCreatedDateDescSurveyidDesc(long topicid, Pageable pageable);
+
+    /**
+     * Fetches the questions of the given surveys, with their templates, into the surveys already loaded
+     *
+     * @param surveyids The survey ids of the surveys. Must not be empty
+     * @return The surveys with their questions initialized
+     */
+    @Query(value = "SELECT DISTINCT s FROM Survey s LEFT JOIN FETCH s.questions q LEFT JOIN FETCH q.template " +
+            "WHERE s.surveyid IN :surveyids")
+    List<Survey> fetchQuestions(Collection<Long> surveyids);
 }
@@ -1,23 +1,232 @@
 package com.lambdaschool.apollo.repository;
 
 import com.lambdaschool.apollo.models.Topic;
+import com.lambdaschool.apollo.models.User;
+import com.lambdaschool.apollo.views.DueTopic;
+import com.lambdaschool.apollo.views.JoinCodeEntry;
 import com.lambdaschool.apollo.views.JustTheCount;
+import com.lambdaschool.apollo.views.SurveyRequestRow;
+import com.lambdaschool.apollo.views.TopicMemberCount;
+import com.lambdaschool.apollo.views.TopicSummaryRow;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.LockModeType;
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
 public interface TopicRepository extends CrudRepository<Topic, Long> {
 
+    /**
+     * All topics, each read with its owner and default survey
+     *
+     * @return Every topic
+     */
+    @Override
+    @EntityGraph(attributePaths = {"owner", "defaultsurvey"})
+    Iterable<Topic> findAll();
 
     List<Topic> findByOwner_usernameOrUsers_user_username(String ownername, String membername);
+    @EntityGraph(attributePaths = {"owner", "defaultsurvey"})
     List<Topic> findByOwner_username(String membername);
+    @EntityGraph(attributePaths = {"owner", "defaultsurvey"})
     List<Topic> findByUsers_user_username(String membername);
 
     Topic findByJoincodeEquals(String joincode);
 
+    /**
+     * Finds the topics of some shards whose next survey request is due, with a range scan of topics_nextrequestdate_idx.
+     * A topic is in shard topicid modulo the number of shards
+     *
+     * @param now    Topics due at or before this time are returned
+     * @param shards How many shards the topics are split into
+     * @param owned  The shards to return topics of. Must not be empty
+     * @param limit  How many topic ids to return at most
+     * @return The topic ids, longest overdue first
+     */
+    @Query(value = "SELECT t.topicId FROM Topic t WHERE t.nextrequestdate <= :now " +
+            "AND MOD(t.topicId, :shards) IN :owned ORDER BY t.nextrequestdate")
+    List<Long> findDueTopicIds(Date now, int shards, Collection<Integer> owned, Pageable limit);
+
+    /**
+     * Reads what the scheduler needs of the given topics that are still due
+     *
+     * @param topicids The topic ids to read. Must not be empty
+     * @param now      Topics due at or before this time are returned
+     * @return The topics that are due, in no particular order
+     */
+    @Query(value = "SELECT t.topicId AS topicid, t.frequency AS frequency, t.nextrequestdate AS nextrequestdate " +
+            "FROM Topic t WHERE t.topicId IN :topicids AND t.nextrequestdate <= :now")
+    List<DueTopic> findDueTopics(Collection<Long> topicids, Date now);
+
+    /**
+     * Finds topics that have a frequency but were never scheduled, such as topics created before the scheduler
+     *
+     * @param limit How many topics to return at most
+     * @return The topics, in no particular order
+     */
+    @Query(value = "SELECT t.topicId AS topicid, t.frequency AS frequency, t.nextrequestdate AS nextrequestdate " +
+            "FROM Topic t WHERE t.nextrequestdate IS NULL AND t.frequency IS NOT NULL")
+    List<DueTopic> findUnscheduledTopics(Pageable limit);
+
+    /**
+     * Locks a topic until the end of the transaction
+     *
+     * @param topicid The topic id of the topic to lock
+     * @return The locked topic, null if it does not exist
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query(value = "SELECT t FROM Topic t WHERE t.topicId = :topicid")
+    Topic lockByTopicId(long topicid);
+
+    /**
+     * Finds the topic id for the given join code
+     *
+     * @param joincode The join code of the topic you seek
+     * @return The topic id or null if no topic has this join code
+     */
+    @Query(value = "SELECT t.topicId FROM Topic t WHERE t.joincode = :joincode")
+    Long findTopicIdByJoincode(String joincode);
+
+    /**
+     * Reads the join code of every topic that has one. Used to warm the join code index
+     *
+     * @return One entry per topic with a join code
+     */
+    @Query(value = "SELECT t.joincode AS joincode, t.topicId AS topicid FROM Topic t WHERE t.joincode IS NOT NULL")
+    List<JoinCodeEntry> findJoinCodes();
+
+    /**
+     * Keyset paginated list of topics
+     *
+     * @param after    Only topics with a topic id greater than this are returned
+     * @param pageable Limits the number of topics returned
+     * @return Topics ordered by topic id
+     */
+    @EntityGraph(attributePaths = {"owner", "defaultsurvey"})
+    List<Topic> findByTopicIdGreaterThanOrderByTopicIdAsc(long after, Pageable pageable);
+
+    /**
+     * Keyset paginated list of topics whose title contains the given substring ignoring case
+     *
+     * @param after    Only topics with a topic id greater than this are returned
+     * @param title    The substring of the title
+     * @param pageable Limits the number of topics returned
+     * @return Topics ordered by topic id
+     */
+    @EntityGraph(attributePaths = {"owner", "defaultsurvey"})
+    List<Topic> findByTopicIdGreaterThanAndTitleContainingIgnoreCaseOrderByTopicIdAsc(long after, String title, Pageable pageable);
+
+    /**
+     * Loads the users who are members of the given topics. The user is part of the key of a topic user,
+     * and Hibernate loads the users in the keys of fetched rows one at a time unless they are already loaded,
+     * so this runs before fetchUsers.
+     *
+     * @param topicids The topic ids of the topics. Must not be empty
+     * @return The members of the topics
+     */
+    @Query(value = "SELECT u FROM User u WHERE u.userid IN " +
+            "(SELECT tu.user.userid FROM TopicUsers tu WHERE tu.topic.topicId IN :topicids)")
+    List<User> findMemberUsers(Collection<Long> topicids);
+
+    /**
+     * Fetches the members of the given topics, and their users, into the topics already loaded
+     *
+     * @param topicids The topic ids of the topics. Must not be empty
+     * @return The topics with their members initialized
+     */
+    @Query(value = "SELECT DISTINCT t FROM Topic t LEFT JOIN FETCH t.users tu LEFT JOIN FETCH tu.user WHERE t.topicId IN :topicids")
+    List<Topic> fetchUsers(Collection<Long> topicids);
+
+    /**
+     * Fetches the survey requests of the given topics into the topics already loaded
+     *
+     * @param topicids The topic ids of the topics. Must not be empty
+     * @return The topics with their survey requests initialized
+     */
+    @Query(value = "SELECT DISTINCT t FROM Topic t LEFT JOIN FETCH t.surveysrequests WHERE t.topicId IN :topicids")
+    List<Topic> fetchSurveysrequests(Collection<Long> topicids);
+
+    /**
+     * Reads the flat summary columns of every topic the given user owns or is a member of
+     *
+     * @param userid The user id of the owner or member
+     * @return One row per topic, ordered by topic id
+     */
+    @Query(value = "SELECT t.topicId AS topicid, t.title AS title, t.frequency AS frequency, t.joincode AS joincode, " +
+            "o.userid AS ownerid, o.username AS ownername, ds.surveyid AS defaultsurveyid " +
+            "FROM Topic t JOIN t.owner o LEFT JOIN t.defaultsurvey ds " +
+            "WHERE o.userid = :userid " +
+            "OR t.topicId IN (SELECT tu.topic.topicId FROM TopicUsers tu WHERE tu.user.userid = :userid) " +
+            "ORDER BY t.topicId")
+    List<TopicSummaryRow> findTopicSummaryRows(long userid);
+
+    /**
+     * Counts the members of each of the given topics. Topics without members are not returned.
+     *
+     * @param topicids The topic ids to count members for. Must not be empty
+     * @return One count per topic that has members
+     */
+    @Query(value = "SELECT tu.topic.topicId AS topicid, COUNT(tu.user.userid) AS count FROM TopicUsers tu " +
+            "WHERE tu.topic.topicId IN :topicids GROUP BY tu.topic.topicId")
+    List<TopicMemberCount> countMembers(Collection<Long> topicids);
+
+    /**
+     * Reads the latest survey requests of each of the given topics, newest first, along with whether the given user
+     * has answered any question of each request
+     *
+     * @param topicids The topic ids whose requests we want. Must not be empty
+     * @param userid   The user id used for the responded flag
+     * @param requests The maximum number of requests to return per topic
+     * @return At most requests rows per topic
+     */
+    @Query(value = "SELECT r.surveyid AS surveyid, r.topicid AS topicid, r.created_date AS createddate, " +
+            "CASE WHEN EXISTS (SELECT 1 FROM answers a WHERE a.surveyid = r.surveyid AND a.userid = :userid) " +
+            "THEN TRUE ELSE FALSE END AS responded " +
+            "FROM (SELECT s.surveyid, s.topicid, s.created_date, " +
+            "ROW_NUMBER() OVER (PARTITION BY s.topicid ORDER BY s.created_date DESC, s.surveyid DESC) AS rn " +
+            "FROM surveys s WHERE s.topicid IN (:topicids)) r " +
+            "WHERE r.rn <= :requests " +
+            "ORDER BY r.topicid, r.created_date DESC, r.surveyid DESC",
+            nativeQuery = true)
+    List<SurveyRequestRow> findLatestRequests(Collection<Long> topicids, long userid, int requests);
+
+    /**
+     * Finds which of the given topics the given user is a member of
+     *
+     * @param userid   The user id of the member
+     * @param topicids The topic ids to check. Must not be empty
+     * @return The subset of the given topic ids the user is a member of
+     */
+    @Query(value = "SELECT tu.topic.topicId FROM TopicUsers tu WHERE tu.user.userid = :userid AND tu.topic.topicId IN :topicids")
+    List<Long> findMemberTopicIds(long userid, Collection<Long> topicids);
+
+    /**
+     * Reads the user ids of every member of the given topic
+     *
+     * @param topicId The topic id of the topic
+     * @return The user ids of the topic's members
+     */
+    @Query(value = "SELECT tu.user.userid FROM TopicUsers tu WHERE tu.topic.topicId = :topicId")
+    List<Long> findMemberUserIds(long topicId);
+
+    /**
+     * Deletes the given users from the given topic in one statement
+     *
+     * @param topicId The topic id of the topic
+     * @param userids The user ids of the members to remove. Must not be empty
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM topicusers WHERE topicid = :topicId AND userid IN :userids", nativeQuery = true)
+    void deleteTopicUsers(long topicId, Collection<Long> userids);
+
     /**
      * Counts the number of topic user combinations for the given topicId and userId. Answer should be only 0 or 1.
      *
@@ -56,4 +265,24 @@ public interface TopicRepository extends CrudRepository<Topic, Long> {
             String uname,
             long topicId,
             long userId);
+
+    /**
+     * Inserts the topic user combination only if the topic exists and the user is not already a member of it
+     *
+     * @param uname   The username (String) of the user adding the record
+     * @param topicId The topic id of the topic of this topic user combination
+     * @param userId  The user id of the user of this topic user combination
+     * @return 1 if the combination was added, 0 if the topic does not exist or the combination already exists
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO topicusers(topicid, userid, created_by, created_date, last_modified_by, last_modified_date) " +
+            "SELECT t.topicid, :userId, :uname, CURRENT_TIMESTAMP, :uname, CURRENT_TIMESTAMP FROM topics t " +
+            "WHERE t.topicid = :topicId AND NOT EXISTS " +
+            "(SELECT 1 FROM topicusers tu WHERE tu.topicid = :topicId AND tu.userid = :userId)",
+            nativeQuery = true)
+    int insertTopicUsersIfAbsent(
+            String uname,
+            long topicId,
+            long userId);
 }
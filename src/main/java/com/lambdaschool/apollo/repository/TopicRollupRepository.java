@@ -0,0 +1,48 @@
+package com.lambdaschool.apollo.repository;
+
+import com.lambdaschool.apollo.models.TopicRollup;
+import com.lambdaschool.apollo.views.RollupGranularity;
+import com.lambdaschool.apollo.views.TopicRollupRow;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+public interface TopicRollupRepository extends CrudRepository<TopicRollup, Long> {
+
+    /**
+     * @param topicid      The topic id of the topic
+     * @param periodstarts The first days of the periods, of any granularity. Must not be empty
+     * @return The rollups of the topic for those periods
+     */
+    @Query(value = "SELECT r FROM TopicRollup r WHERE r.topic.topicId = :topicid AND r.periodstart IN :periodstarts")
+    List<TopicRollup> findByTopicIdAndPeriodstarts(long topicid, Collection<LocalDate> periodstarts);
+
+    /**
+     * Reads the rollups of a topic for a range of periods with a single scan of the topicrollups_period_idx index
+     *
+     * @param topicid     The topic id of the topic
+     * @param granularity The granularity of the periods
+     * @param from        The first day of the range
+     * @param to          The last day of the range
+     * @return The rollups whose period starts in the range, oldest period first
+     */
+    @Query(value = "SELECT r.periodstart AS periodstart, r.questionbody AS questionbody, r.type AS type, " +
+            "r.answercount AS answercount, r.valuecount AS valuecount, r.total AS total, " +
+            "r.minimum AS minimum, r.maximum AS maximum FROM TopicRollup r " +
+            "WHERE r.topic.topicId = :topicid AND r.granularity = :granularity " +
+            "AND r.periodstart BETWEEN :from AND :to ORDER BY r.periodstart")
+    List<TopicRollupRow> findRows(long topicid, RollupGranularity granularity, LocalDate from, LocalDate to);
+
+    /**
+     * Removes every rollup of a topic, used before they are rebuilt
+     *
+     * @param topicid The topic id of the topic
+     */
+    @Modifying
+    @Query(value = "DELETE FROM TopicRollup r WHERE r.topic.topicId = :topicid")
+    void deleteByTopicId(long topicid);
+}
@@ -2,11 +2,13 @@ package com.lambdaschool.apollo.repository;
 
 import com.lambdaschool.apollo.models.User;
 import com.lambdaschool.apollo.views.JustTheCount;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -30,6 +32,36 @@ public interface UserRepository
      */
     List<User> findByUsernameContainingIgnoreCase(String name);
 
+    /**
+     * Keyset paginated list of users
+     *
+     * @param after    Only users with a user id greater than this are returned
+     * @param pageable Limits the number of users returned
+     * @return Users ordered by user id
+     */
+    List<User> findByUseridGreaterThanOrderByUseridAsc(long after, Pageable pageable);
+
+    /**
+     * Keyset paginated list of users whose name contains a given substring ignoring case
+     *
+     * @param after    Only users with a user id greater than this are returned
+     * @param name     The substring of the names (String) you seek
+     * @param pageable Limits the number of users returned
+     * @return Users ordered by user id
+     */
+    List<User> findByUseridGreaterThanAndUsernameContainingIgnoreCaseOrderByUseridAsc(long after, String name, Pageable pageable);
+
+    /**
+     * Fetches the topics the given users are members of, with each topic's owner and default survey,
+     * into the users already loaded
+     *
+     * @param userids The user ids of the users. Must not be empty
+     * @return The users with their topics initialized
+     */
+    @Query(value = "SELECT DISTINCT u FROM User u LEFT JOIN FETCH u.topics tu LEFT JOIN FETCH tu.topic t " +
+            "LEFT JOIN FETCH t.owner LEFT JOIN FETCH t.defaultsurvey WHERE u.userid IN :userids")
+    List<User> fetchTopics(Collection<Long> userids);
+
     /**
      * Counts the number of user role combinations for the given userid and roleid. Answer should be only 0 or 1.
      *
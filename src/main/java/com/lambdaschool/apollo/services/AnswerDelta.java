@@ -0,0 +1,134 @@
+package com.lambdaschool.apollo.services;
+
+import com.lambdaschool.apollo.views.QuestionType;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * What a set of answers to one question adds to its aggregates: every answer is counted, RATING and BOOL
+ * answers also have a numeric value (the rating, 1 or 0) and each answer falls into a histogram bucket.
+ * Shared by the question aggregates and the topic rollups.
+ */
+class AnswerDelta {
+    /**
+     * Longest MULTIPLE option kept as a bucket label, the length of the label column
+     */
+    static final int MAX_LABEL = 255;
+
+    final QuestionType type;
+    long count;
+    long valuecount;
+    double total;
+    Double min;
+    Double max;
+    final Map<String, Bucket> buckets = new LinkedHashMap<>();
+
+    AnswerDelta(QuestionType type) {
+        this.type = type;
+    }
+
+    /**
+     * @return true for the question types answers are aggregated for, TEXT answers are not
+     */
+    static boolean isAggregated(QuestionType type) {
+        return type == QuestionType.RATING || type == QuestionType.BOOL || type == QuestionType.MULTIPLE;
+    }
+
+    void add(String body) {
+        count++;
+        if (body == null) {
+            return;
+        }
+        String answer = body.trim();
+        switch (type) {
+            case RATING:
+                Double rating = rating(answer);
+                if (rating != null) {
+                    addValue(rating);
+                    addBucket(BigDecimal.valueOf(rating).stripTrailingZeros().toPlainString(), rating);
+                }
+                break;
+            case BOOL:
+                Boolean bool = bool(answer);
+                if (bool != null) {
+                    addValue(bool ? 1 : 0);
+                    addBucket(bool.toString(), bool ? 1.0 : 0.0);
+                }
+                break;
+            default:
+                if (!answer.isEmpty()) {
+                    addBucket(answer.length() > MAX_LABEL ? answer.substring(0, MAX_LABEL) : answer, null);
+                }
+        }
+    }
+
+    /**
+     * Adds what another delta of a question of the same type holds to this one
+     */
+    void merge(AnswerDelta other) {
+        count += other.count;
+        valuecount += other.valuecount;
+        total += other.total;
+        min = min(min, other.min);
+        max = max(max, other.max);
+        for (Bucket b : other.buckets.values()) {
+            buckets.computeIfAbsent(b.label, l -> new Bucket(l, b.value)).count += b.count;
+        }
+    }
+
+    static Double min(Double a, Double b) {
+        return a == null ? b : b == null ? a : Double.valueOf(Math.min(a, b));
+    }
+
+    static Double max(Double a, Double b) {
+        return a == null ? b : b == null ? a : Double.valueOf(Math.max(a, b));
+    }
+
+    private void addValue(double value) {
+        valuecount++;
+        total += value;
+        min = min(min, value);
+        max = max(max, value);
+    }
+
+    private void addBucket(String label, Double value) {
+        buckets.computeIfAbsent(label, l -> new Bucket(l, value)).count++;
+    }
+
+    private static Double rating(String answer) {
+        try {
+            double rating = Double.parseDouble(answer);
+            return Double.isFinite(rating) ? rating : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Boolean bool(String answer) {
+        switch (answer.toLowerCase()) {
+            case "true":
+            case "yes":
+            case "1":
+                return Boolean.TRUE;
+            case "false":
+            case "no":
+            case "0":
+                return Boolean.FALSE;
+            default:
+                return null;
+        }
+    }
+
+    static class Bucket {
+        final String label;
+        final Double value;
+        long count;
+
+        Bucket(String label, Double value) {
+            this.label = label;
+            this.value = value;
+        }
+    }
+}
@@ -2,9 +2,13 @@ package com.lambdaschool.apollo.services;
 
 import com.lambdaschool.apollo.models.Answer;
 import com.lambdaschool.apollo.models.User;
+import com.lambdaschool.apollo.views.AnswerRow;
 import com.lambdaschool.apollo.views.QuestionBody;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface AnswerService {
 
@@ -14,6 +18,8 @@ public interface AnswerService {
 
     void save(QuestionBody qb, User user);
 
+    void saveAll(List<QuestionBody> answers, User user);
+
     Answer update(Answer answer);
 
     List<Answer> findAllAnswers();
@@ -21,4 +27,22 @@ public interface AnswerService {
     List<Answer> findBySurveyId(long surveyid);
 
     Answer findByQuestionIdAndUserId(long questionId, long userId);
+
+    Set<Long> findRespondedSurveyIds(Collection<Long> surveyIds, long userId);
+
+    /**
+     * Hands each answer to a survey to the given consumer as it is read from the database
+     *
+     * @param surveyid The survey id of the survey
+     * @param rows     Receives the rows ordered by answer id
+     */
+    void exportBySurveyId(long surveyid, Consumer<AnswerRow> rows);
+
+    /**
+     * Hands each answer to every survey request of a topic to the given consumer as it is read from the database
+     *
+     * @param topicid The topic id of the topic
+     * @param rows    Receives the rows ordered by survey request, oldest first, then by answer id
+     */
+    void exportByTopicId(long topicid, Consumer<AnswerRow> rows);
 }
@@ -1,18 +1,39 @@
 package com.lambdaschool.apollo.services;
 
+import com.lambdaschool.apollo.exceptions.ResourceFoundException;
 import com.lambdaschool.apollo.exceptions.ResourceNotFoundException;
 import com.lambdaschool.apollo.models.Answer;
 import com.lambdaschool.apollo.models.Question;
 import com.lambdaschool.apollo.models.Survey;
+import com.lambdaschool.apollo.models.Topic;
 import com.lambdaschool.apollo.models.User;
 import com.lambdaschool.apollo.repository.AnswerRepository;
+import com.lambdaschool.apollo.repository.QuestionRepository;
+import com.lambdaschool.apollo.repository.TopicRepository;
+import com.lambdaschool.apollo.views.AnswerRow;
+import com.lambdaschool.apollo.views.BucketSummary;
 import com.lambdaschool.apollo.views.QuestionBody;
+import com.lambdaschool.apollo.views.QuestionDelta;
+import com.lambdaschool.apollo.views.ResponseEvent;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import javax.transaction.Transactional;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Transactional
 @Service(value = "answerService")
@@ -29,6 +50,37 @@ public class AnswerServiceImpl implements AnswerService {
     @Autowired
     SurveyService surveyService;
 
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private TopicRepository topicRepository;
+
+    @Autowired
+    private UserAuditing userAuditing;
+
+    @Autowired
+    private QuestionAggregateService questionAggregateService;
+
+    @Autowired
+    private TopicRollupService topicRollupService;
+
+    @Autowired
+    private ResponseEventHub responseEventHub;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Answers are written straight through JDBC so a whole submission goes out as one batch.
+     * The id comes from the same sequence Hibernate uses for every other table.
+     * A user answering the same question twice is rejected by the unique (questionid, userid) constraint.
+     */
+    private static final String INSERT_ANSWER = "INSERT INTO answers(answerid, body, questionid, userid, surveyid, " +
+            "created_by, created_date, last_modified_by, last_modified_date) " +
+            "VALUES (NEXTVAL('hibernate_sequence'), ?, ?, ?, ?, ?, CURRENT_TIMESTAMP, ?, CURRENT_TIMESTAMP)";
+
+    @Transactional(readOnly = true)
     @Override
     public Answer findById(long id) {
         return answerRepository.findById(id)
@@ -47,31 +99,32 @@ public class AnswerServiceImpl implements AnswerService {
     @Override
     public void save(QuestionBody qb, User user) {
 
-        Answer newAnswer = new Answer();
-        if (qb.getBody() != null) {
-            newAnswer.setBody(qb.getBody());
-        } else {
+        if (qb.getBody() == null) {
             throw new ResourceNotFoundException("Answer has no body!");
         }
         Question question = questionService.findById(qb.getQuestionid());
-        if (question != null) {
-            newAnswer.setQuestion(question);
-        } else {
+        if (question == null) {
             throw new ResourceNotFoundException("Question Id " + qb.getQuestionid() + " Not Found");
         }
-        if (user.getUserid() == userService.findUserById(user.getUserid()).getUserid()) {
-            newAnswer.setUser(userService.findUserById(user.getUserid()));
-        } else {
-            throw new ResourceNotFoundException("User Id " + user.getUserid() + " Not Found");
-        }
+        // findUserById throws if the user does not exist
+        User answerer = userService.findUserById(user.getUserid());
         Survey survey = question.getSurvey();
-        if (survey != null) {
-            newAnswer.setSurvey(survey);
-        } else {
-            throw new ResourceNotFoundException("Survey Id " + question.getSurvey().getSurveyid() + "Not Found");
+        if (survey == null) {
+            throw new ResourceNotFoundException("Survey for question " + question.getQuestionid() + " Not Found");
         }
 
-        answerRepository.save(newAnswer);
+        List<QuestionBody> saved = Collections.singletonList(qb);
+        Map<Long, Question> questions = Collections.singletonMap(question.getQuestionid(), question);
+        Collection<ResponseEvent> events = responseEvents(saved, questions, answerer.getUserid());
+
+        // before the insert, which on PostgreSQL takes KEY SHARE locks on the question
+        questionAggregateService.lock(saved, questions);
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(answerRow(qb.getBody(), question.getQuestionid(), answerer.getUserid(), survey.getSurveyid()));
+        insertAnswers(rows);
+        questionAggregateService.record(saved, questions);
+        topicRollupService.record(saved, questions);
+        publishAfterCommit(events);
 
 //        yes this is dead code but it will get implemented in an future save method overload
 //        if (answer.getAnswerId() != 0) {
@@ -82,12 +135,158 @@ public class AnswerServiceImpl implements AnswerService {
 
     }
 
+    @Transactional
+    @Override
+    public void saveAll(List<QuestionBody> answers, User user) {
+        if (answers.isEmpty()) {
+            return;
+        }
+
+        Set<Long> questionIds = new HashSet<>();
+        for (QuestionBody qb : answers) {
+            if (qb.getBody() == null) {
+                throw new ResourceNotFoundException("Answer has no body!");
+            }
+            if (!questionIds.add(qb.getQuestionid())) {
+                throw new ResourceFoundException("Question with id - " + qb.getQuestionid() + " answered more than once");
+            }
+        }
+
+        // the whole submission is validated with two queries: questions (with survey, topic and owner)
+        // and the user's memberships in those topics. Questions already answered are caught on insert
+        Map<Long, Question> questions = new HashMap<>();
+        for (Question q : questionRepository.findWithTopicByQuestionidIn(questionIds)) {
+            questions.put(q.getQuestionid(), q);
+        }
+
+        Set<Long> topicIds = new HashSet<>();
+        for (QuestionBody qb : answers) {
+            Question question = questions.get(qb.getQuestionid());
+            if (question == null) {
+                throw new ResourceNotFoundException("Question Id " + qb.getQuestionid() + " Not Found");
+            }
+            Topic topic = question.getSurvey().getTopic();
+            if (topic == null) {
+                throw new ResourceNotFoundException("Survey " + question.getSurvey().getSurveyid() + " is not a survey request");
+            }
+            topicIds.add(topic.getTopicId());
+        }
+
+        Set<Long> memberOf = new HashSet<>(topicRepository.findMemberTopicIds(user.getUserid(), topicIds));
+
+        List<Object[]> rows = new ArrayList<>();
+        for (QuestionBody qb : answers) {
+            Question question = questions.get(qb.getQuestionid());
+            Topic topic = question.getSurvey().getTopic();
+
+            if (question.isLeader()) {
+                if (user.getUserid() != topic.getOwner().getUserid()) {
+                    throw new ResourceFoundException("Current user not owner of topic with id - " + topic.getTopicId());
+                }
+            } else {
+                if (user.getUserid() == topic.getOwner().getUserid()) {
+                    throw new ResourceFoundException("Topic owner cannot answer request questions");
+                } else if (!memberOf.contains(topic.getTopicId())) {
+                    throw new ResourceFoundException("Current user not a member of topic with id - " + topic.getTopicId());
+                }
+            }
+
+            rows.add(answerRow(qb.getBody(), question.getQuestionid(), user.getUserid(), question.getSurvey().getSurveyid()));
+        }
+
+        Collection<ResponseEvent> events = responseEvents(answers, questions, user.getUserid());
+        // before the insert, which on PostgreSQL takes KEY SHARE locks on the questions
+        questionAggregateService.lock(answers, questions);
+        insertAnswers(rows);
+        questionAggregateService.record(answers, questions);
+        topicRollupService.record(answers, questions);
+        publishAfterCommit(events);
+    }
+
+    /**
+     * Builds what a submission adds to the survey requests someone watches through ResponseEventHub. Requests nobody
+     * watches are skipped, so a submission costs no more unless someone does. Has to run before the answers are inserted,
+     * to tell a first response from one more answer to a request the user already responded to.
+     */
+    private Collection<ResponseEvent> responseEvents(List<QuestionBody> answers, Map<Long, Question> questions, long userid) {
+        Map<Long, ResponseEvent> events = new LinkedHashMap<>();
+        Map<Long, AnswerDelta> deltas = new LinkedHashMap<>();
+        for (QuestionBody qb : answers) {
+            Question question = questions.get(qb.getQuestionid());
+            long surveyid = question.getSurvey().getSurveyid();
+            if (!events.containsKey(surveyid) && !responseEventHub.hasSubscribers(surveyid)) {
+                continue;
+            }
+            ResponseEvent event = events.computeIfAbsent(surveyid, ResponseEvent::new);
+            event.setAnswers(event.getAnswers() + 1);
+            if (AnswerDelta.isAggregated(question.getType())) {
+                deltas.computeIfAbsent(question.getQuestionid(), id -> new AnswerDelta(question.getType())).add(qb.getBody());
+            }
+        }
+        if (events.isEmpty()) {
+            return events.values();
+        }
+
+        Set<Long> responded = new HashSet<>(answerRepository.findRespondedSurveyIds(userid, events.keySet()));
+        for (ResponseEvent event : events.values()) {
+            event.setResponses(responded.contains(event.getSurveyid()) ? 0 : 1);
+        }
+        for (Map.Entry<Long, AnswerDelta> entry : deltas.entrySet()) {
+            AnswerDelta delta = entry.getValue();
+            QuestionDelta qd = new QuestionDelta(entry.getKey());
+            qd.setCount(delta.count);
+            qd.setValuecount(delta.valuecount);
+            qd.setSum(delta.total);
+            qd.setMin(delta.min);
+            qd.setMax(delta.max);
+            for (AnswerDelta.Bucket b : delta.buckets.values()) {
+                qd.getBuckets().add(new BucketSummary(b.label, b.count));
+            }
+            events.get(questions.get(entry.getKey()).getSurvey().getSurveyid()).getQuestions().add(qd);
+        }
+        return events.values();
+    }
+
+    /**
+     * Hands the events to ResponseEventHub once the transaction commits, so a rolled back submission is never seen
+     */
+    private void publishAfterCommit(Collection<ResponseEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            events.forEach(responseEventHub::publish);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                events.forEach(responseEventHub::publish);
+            }
+        });
+    }
+
+    private Object[] answerRow(String body, long questionid, long userid, long surveyid) {
+        String uname = userAuditing.getCurrentAuditor().get();
+        return new Object[]{body, questionid, userid, surveyid, uname, uname};
+    }
+
+    private void insertAnswers(List<Object[]> rows) {
+        try {
+            jdbcTemplate.batchUpdate(INSERT_ANSWER, rows);
+        } catch (DuplicateKeyException e) {
+            // the whole batch is rolled back with the surrounding transaction
+            throw new ResourceFoundException("Current user already answered one or more of these questions");
+        }
+    }
+
     @Transactional
     @Override
     public Answer update(Answer answer) {
         return null;
     }
 
+    @Transactional(readOnly = true)
     @Override
     public List<Answer> findAllAnswers() {
         List<Answer> a = new ArrayList<>();
@@ -96,12 +295,30 @@ public class AnswerServiceImpl implements AnswerService {
         return a;
     }
 
+    @Transactional(readOnly = true)
     @Override
     public List<Answer> findBySurveyId(long surveyid) {
-        List<Answer> answers = answerRepository.findBySurvey_surveyid(surveyid);
+        List<Answer> answers = answerRepository.findWithQuestionAndUserBySurveyId(surveyid);
         return answers;
     }
 
+    @Transactional(readOnly = true)
+    @Override
+    public void exportBySurveyId(long surveyid, Consumer<AnswerRow> rows) {
+        try (Stream<AnswerRow> stream = answerRepository.streamBySurveyId(surveyid)) {
+            stream.forEach(rows);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public void exportByTopicId(long topicid, Consumer<AnswerRow> rows) {
+        try (Stream<AnswerRow> stream = answerRepository.streamByTopicId(topicid)) {
+            stream.forEach(rows);
+        }
+    }
+
+    @Transactional(readOnly = true)
     @Override
     public Answer findByQuestionIdAndUserId(long questionId, long userId) {
         Answer answer = answerRepository.findAnswerByQuestionIdAndUserId(questionId, userId);
@@ -111,4 +328,14 @@ public class AnswerServiceImpl implements AnswerService {
             return answer;
         }
     }
+
+    @Transactional(readOnly = true)
+    @Override
+    public Set<Long> findRespondedSurveyIds(Collection<Long> surveyIds, long userId) {
+        // an empty IN list is not valid SQL, and nothing can have been answered anyway
+        if (surveyIds.isEmpty()) {
+            return new HashSet<>();
+        }
+        return new HashSet<>(answerRepository.findRespondedSurveyIds(userId, surveyIds));
+    }
 }
@@ -0,0 +1,157 @@
+package com.lambdaschool.apollo.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This instance of the API as the other instances see it through LeaseService. It joins the cluster the first
+ * time a background job claims its shards, heartbeats from then on so it keeps them, and leaves on shutdown
+ * so the others take over without waiting for its leases to expire. A shard held for this instance alone is
+ * claimed again with every heartbeat, and read from memory in between.
+ */
+@Component
+public class ClusterInstance {
+    private static final Logger logger = LoggerFactory.getLogger(ClusterInstance.class);
+
+    @Autowired
+    private LeaseService leaseService;
+
+    /**
+     * Unique per running instance. The dyno name is not enough, a restarted dyno must not pick up the leases
+     * its previous run held
+     */
+    @Value("${apollo.cluster.instance-id:}")
+    private String instanceId;
+
+    @Value("${apollo.cluster.lease-ttl-ms:30000}")
+    private long leaseTtlMs;
+
+    private volatile boolean joined;
+
+    /**
+     * The shards held for this instance alone, by job
+     */
+    private final Map<String, HeldShard> held = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void start() {
+        if (instanceId.isEmpty()) {
+            String dyno = System.getenv("DYNO");
+            instanceId = (dyno == null ? "apollo" : dyno) + "-" + UUID.randomUUID().toString().substring(0, 8);
+        }
+    }
+
+    /**
+     * Claims this instance's share of the shards of a job, see LeaseService.claim
+     *
+     * @param job    The name of the job
+     * @param shards How many shards the job has
+     * @return The shards to run now, none when the claim failed
+     */
+    public Set<Integer> claim(String job, int shards) {
+        joined = true;
+        try {
+            return leaseService.claim(instanceId, job, shards);
+        } catch (DataAccessException e) {
+            logger.warn("Claiming {} failed: {}", job, e.getMessage());
+            return Collections.emptySet();
+        }
+    }
+
+    /**
+     * Claims a shard of a job for this instance alone, and claims it again with every heartbeat from then on,
+     * see LeaseService.claimOne
+     *
+     * @param job    The name of the job
+     * @param shards How many shards the job has
+     */
+    public void hold(String job, int shards) {
+        joined = true;
+        HeldShard shard = new HeldShard(shards);
+        held.put(job, shard);
+        renew(job, shard);
+    }
+
+    /**
+     * @param job The name of a job passed to hold
+     * @return The shard of the job this instance holds, null when it has none or has not renewed it for a lease's time
+     */
+    public Integer heldShard(String job) {
+        HeldShard shard = held.get(job);
+        if (shard == null || System.currentTimeMillis() - shard.renewedAt > leaseTtlMs) {
+            return null;
+        }
+        return shard.shard;
+    }
+
+    @Scheduled(fixedDelayString = "${apollo.cluster.heartbeat-interval-ms:10000}")
+    public void heartbeat() {
+        if (!joined) {
+            return;
+        }
+        try {
+            leaseService.heartbeat(instanceId);
+        } catch (DataAccessException e) {
+            logger.warn("Heartbeat of {} failed: {}", instanceId, e.getMessage());
+        }
+        held.forEach(this::renew);
+    }
+
+    private void renew(String job, HeldShard shard) {
+        // taken before the claim, so the shard is given up no later than its lease expires
+        long now = System.currentTimeMillis();
+        try {
+            Integer claimed = leaseService.claimOne(instanceId, job, shard.shards);
+            if (claimed == null) {
+                logger.warn("No shard of {} free for {}", job, instanceId);
+            } else if (shard.shard != null && !shard.shard.equals(claimed)) {
+                logger.warn("{} lost shard {} of {}, now holds {}", instanceId, shard.shard, job, claimed);
+            }
+            shard.shard = claimed;
+            shard.renewedAt = now;
+        } catch (DataAccessException e) {
+            // the shard is kept until its lease would have expired
+            logger.warn("Renewing {} of {} failed: {}", job, instanceId, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void leave() {
+        if (!joined) {
+            return;
+        }
+        try {
+            leaseService.leave(instanceId);
+        } catch (DataAccessException e) {
+            // the leases expire on their own
+            logger.warn("Leaving as {} failed: {}", instanceId, e.getMessage());
+        }
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    private static class HeldShard {
+        final int shards;
+        volatile Integer shard;
+        volatile long renewedAt;
+
+        HeldShard(int shards) {
+            this.shards = shards;
+        }
+    }
+}
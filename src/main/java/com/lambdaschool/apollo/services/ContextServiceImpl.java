@@ -3,6 +3,7 @@ package com.lambdaschool.apollo.services;
 import com.lambdaschool.apollo.exceptions.ResourceNotFoundException;
 import com.lambdaschool.apollo.models.Context;
 import com.lambdaschool.apollo.models.Question;
+import com.lambdaschool.apollo.models.QuestionTemplate;
 import com.lambdaschool.apollo.models.Survey;
 import com.lambdaschool.apollo.repository.ContextRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,6 +11,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 @Transactional
@@ -25,6 +27,10 @@ public class ContextServiceImpl implements ContextService {
     @Autowired
     private QuestionService questionService;
 
+    @Autowired
+    private QuestionTemplateService questionTemplateService;
+
+    @Transactional(readOnly = true)
     @Override
     public List<Context> findAll() {
 
@@ -33,6 +39,7 @@ public class ContextServiceImpl implements ContextService {
         return contextList;
     }
 
+    @Transactional(readOnly = true)
     @Override
     public Context findById(long id) {
 
@@ -40,6 +47,7 @@ public class ContextServiceImpl implements ContextService {
                 .orElseThrow(() -> new ResourceNotFoundException("Context " + id + " Not Found"));
     }
 
+    @Transactional(readOnly = true)
     @Override
     public Context findByDescription(String description) {
 
@@ -80,7 +88,9 @@ public class ContextServiceImpl implements ContextService {
                     newContext.getSurvey().addQuestion(q1);
                 // Cool, a new question. I can create that
                 } else {
-                    newContext.getSurvey().addQuestion(new Question(q.getBody(), q.isLeader(), q.getType(),newContext.getSurvey()));
+                    QuestionTemplate template = questionTemplateService.intern(
+                            Collections.singletonList(new QuestionTemplate(q.getBody(), q.getType()))).get(0);
+                    newContext.getSurvey().addQuestion(new Question(template, q.isLeader(), newContext.getSurvey()));
                 }
             }
         }
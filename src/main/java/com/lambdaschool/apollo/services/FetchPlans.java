@@ -0,0 +1,191 @@
+package com.lambdaschool.apollo.services;
+
+import com.lambdaschool.apollo.models.*;
+import com.lambdaschool.apollo.repository.ContextRepository;
+import com.lambdaschool.apollo.repository.QuestionRepository;
+import com.lambdaschool.apollo.repository.RoleRepository;
+import com.lambdaschool.apollo.repository.SurveyRepository;
+import com.lambdaschool.apollo.repository.TopicRepository;
+import com.lambdaschool.apollo.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Loads everything the controllers serialize for a set of entities, so nothing is lazily loaded once the
+ * transaction is over. Open session in view is off, and the connection is back in the pool before Jackson starts.
+ * <p>
+ * Each step is one fetch join query that initializes one collection of all the given entities at once,
+ * as bags cannot be fetch joined together. The results land in the entities already in the persistence context,
+ * so the plans have to run in the transaction that loaded them. The number of queries depends on the shape
+ * of the graph, not on how many entities are in it. Null entities are skipped.
+ */
+@Component
+public class FetchPlans {
+    /**
+     * Ids per IN list, well below the bind parameter limits of the databases
+     */
+    static final int CHUNK = 1000;
+
+    @Autowired
+    private TopicRepository topicRepository;
+
+    @Autowired
+    private SurveyRepository surveyRepository;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private ContextRepository contextRepository;
+
+    /**
+     * Topics with their members, survey requests and default survey, and the questions and answers of those surveys.
+     * The owner and default survey come with the topic itself.
+     */
+    public void topics(Collection<Topic> topics) {
+        Set<Long> ids = ids(topics, Topic::getTopicId);
+        chunked(ids, topicRepository::findMemberUsers);
+        chunked(ids, topicRepository::fetchUsers);
+        chunked(ids, topicRepository::fetchSurveysrequests);
+
+        List<Survey> surveys = new ArrayList<>();
+        for (Topic topic : topics) {
+            if (topic == null) {
+                continue;
+            }
+            if (topic.getDefaultsurvey() != null) {
+                surveys.add(topic.getDefaultsurvey());
+            }
+            surveys.addAll(topic.getSurveysrequests());
+        }
+        surveys(surveys);
+    }
+
+    public void topic(Topic topic) {
+        topics(Collections.singletonList(topic));
+    }
+
+    /**
+     * Surveys with their questions, and the answers to those questions with the users who gave them
+     */
+    public void surveys(Collection<Survey> surveys) {
+        Set<Long> ids = ids(surveys, Survey::getSurveyid);
+        chunked(ids, surveyRepository::fetchQuestions);
+        chunked(ids, questionRepository::fetchAnswersBySurveyIds);
+    }
+
+    public void survey(Survey survey) {
+        surveys(Collections.singletonList(survey));
+    }
+
+    /**
+     * Questions with their answers and the users who gave them. The survey comes with the question itself.
+     */
+    public void questions(Collection<Question> questions) {
+        chunked(ids(questions, Question::getQuestionid), questionRepository::fetchAnswers);
+    }
+
+    /**
+     * Users with the topics they are members of, each topic as in topics
+     */
+    public void users(Collection<User> users) {
+        chunked(ids(users, User::getUserid), userRepository::fetchTopics);
+
+        List<Topic> topics = new ArrayList<>();
+        for (User user : users) {
+            if (user == null) {
+                continue;
+            }
+            for (TopicUsers tu : user.getTopics()) {
+                topics.add(tu.getTopic());
+            }
+        }
+        topics(topics);
+    }
+
+    public void user(User user) {
+        users(Collections.singletonList(user));
+    }
+
+    /**
+     * Roles with their users, each user as in users
+     */
+    public void roles(Collection<Role> roles) {
+        chunked(ids(roles, Role::getRoleid), roleRepository::fetchUsers);
+
+        List<User> users = new ArrayList<>();
+        for (Role role : roles) {
+            if (role == null) {
+                continue;
+            }
+            for (UserRoles ur : role.getUsers()) {
+                users.add(ur.getUser());
+            }
+        }
+        users(users);
+    }
+
+    public void role(Role role) {
+        roles(Collections.singletonList(role));
+    }
+
+    /**
+     * Contexts with their questions and survey, each as in questions and surveys
+     */
+    public void contexts(Collection<Context> contexts) {
+        chunked(ids(contexts, Context::getContextId), contextRepository::fetchQuestions);
+
+        List<Survey> surveys = new ArrayList<>();
+        List<Question> questions = new ArrayList<>();
+        for (Context context : contexts) {
+            if (context == null) {
+                continue;
+            }
+            if (context.getSurvey() != null) {
+                surveys.add(context.getSurvey());
+            }
+            questions.addAll(context.getContextquestions());
+        }
+        surveys(surveys);
+        questions(questions);
+    }
+
+    public void context(Context context) {
+        contexts(Collections.singletonList(context));
+    }
+
+    /**
+     * The distinct ids of the given entities, leaving out entities that were never saved
+     */
+    private static <T> Set<Long> ids(Collection<T> entities, ToLongFunction<T> id) {
+        Set<Long> ids = new LinkedHashSet<>();
+        for (T entity : entities) {
+            if (entity != null && id.applyAsLong(entity) != 0) {
+                ids.add(id.applyAsLong(entity));
+            }
+        }
+        return ids;
+    }
+
+    private static void chunked(Set<Long> ids, Consumer<Collection<Long>> fetch) {
+        List<Long> list = new ArrayList<>(ids);
+        for (int from = 0; from < list.size(); from += CHUNK) {
+            fetch.accept(list.subList(from, Math.min(list.size(), from + CHUNK)));
+        }
+    }
+}
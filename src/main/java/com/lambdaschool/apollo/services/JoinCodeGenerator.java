@@ -0,0 +1,135 @@
+package com.lambdaschool.apollo.services;
+
+import org.hashids.Hashids;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates topic join codes without a database round trip.
+ * <p>
+ * Each code is the Hashids encoding of a Snowflake style id: 41 bits of milliseconds since 2020-01-01,
+ * 5 bits of node id and a 7 bit per millisecond sequence. That keeps ids below 2^53, the largest number Hashids encodes.
+ * Ids are strictly increasing per node, so codes are unique as long as every running instance has its own node id.
+ * <p>
+ * Unless apollo.joincode.node-id (0 - 31) pins it, the node id is leased through ClusterInstance once the application
+ * is ready, so instances started with the same configuration still get different ones. ClusterInstance renews the
+ * lease with its heartbeat, generating a code only reads the node id it holds.
+ */
+@Component
+public class JoinCodeGenerator {
+    static final long EPOCH = 1577836800000L; // 2020-01-01T00:00:00Z
+
+    static final int NODE_BITS = 5;
+    static final int SEQUENCE_BITS = 7;
+    static final int TIMESTAMP_BITS = 41;
+
+    static final long MAX_NODE = (1L << NODE_BITS) - 1;
+    static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    static final long MAX_TIMESTAMP = (1L << TIMESTAMP_BITS) - 1;
+
+    /**
+     * The leases of the node ids, see LeaseService
+     */
+    static final String JOB = "joincode-nodes";
+
+    private final Hashids hashids;
+
+    /**
+     * Leases the node id, null when it is pinned
+     */
+    private final ClusterInstance clusterInstance;
+
+    private final long node;
+
+    /**
+     * The last issued timestamp and sequence, packed as (timestamp << SEQUENCE_BITS) | sequence
+     */
+    private final AtomicLong last = new AtomicLong();
+
+    @Autowired
+    public JoinCodeGenerator(
+            @Value("${HASHSALT:}") String salt,
+            @Value("${apollo.joincode.node-id:-1}") long node,
+            ClusterInstance clusterInstance) {
+        if (node < -1 || node > MAX_NODE) {
+            throw new IllegalArgumentException("apollo.joincode.node-id must be between 0 and " + MAX_NODE);
+        }
+        this.hashids = new Hashids(salt);
+        this.node = node;
+        this.clusterInstance = node == -1 ? clusterInstance : null;
+    }
+
+    /**
+     * A generator with a pinned node id
+     */
+    public JoinCodeGenerator(String salt, long node) {
+        this(salt, checked(node), null);
+    }
+
+    private static long checked(long node) {
+        if (node < 0) {
+            throw new IllegalArgumentException("node must be between 0 and " + MAX_NODE);
+        }
+        return node;
+    }
+
+    /**
+     * @return A new join code
+     */
+    public String next() {
+        return hashids.encode(nextId());
+    }
+
+    /**
+     * Returns the next id for this node. When the sequence of the current millisecond runs out, or the clock moves
+     * backwards, ids keep counting from the last one issued instead of waiting for the clock.
+     *
+     * @return A new id, strictly greater than any id this generator returned before
+     */
+    long nextId() {
+        long node = node();
+        long now = System.currentTimeMillis() - EPOCH;
+        long prev;
+        long tick;
+        do {
+            prev = last.get();
+            tick = Math.max(now << SEQUENCE_BITS, prev + 1);
+        } while (!last.compareAndSet(prev, tick));
+
+        long timestamp = tick >>> SEQUENCE_BITS;
+        if (timestamp > MAX_TIMESTAMP) {
+            throw new IllegalStateException("Join code timestamp bits exhausted");
+        }
+        return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (node << SEQUENCE_BITS) | (tick & SEQUENCE_MASK);
+    }
+
+    /**
+     * Leases the node id, unless it is pinned
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void leaseNode() {
+        if (clusterInstance != null) {
+            clusterInstance.hold(JOB, (int) MAX_NODE + 1);
+        }
+    }
+
+    /**
+     * @return The pinned node id, or the one this instance holds
+     */
+    long node() {
+        if (clusterInstance == null) {
+            return node;
+        }
+        Integer leased = clusterInstance.heldShard(JOB);
+        if (leased == null) {
+            throw new IllegalStateException("No join code node id leased, more than " + (MAX_NODE + 1)
+                    + " instances running or the lease could not be renewed");
+        }
+        return leased;
+    }
+}
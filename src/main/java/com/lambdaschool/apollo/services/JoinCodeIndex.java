@@ -0,0 +1,82 @@
+package com.lambdaschool.apollo.services;
+
+import com.lambdaschool.apollo.repository.TopicRepository;
+import com.lambdaschool.apollo.views.JoinCodeEntry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In memory join code to topic id index. Loaded once the application is ready and kept current by TopicServiceImpl.
+ * <p>
+ * Codes written by another instance are not here until first looked up, so a miss falls back to the database.
+ */
+@Component
+public class JoinCodeIndex {
+
+    @Autowired
+    private TopicRepository topicRepository;
+
+    private final Map<String, Long> topicIds = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warm() {
+        for (JoinCodeEntry e : topicRepository.findJoinCodes()) {
+            topicIds.put(e.getJoincode(), e.getTopicid());
+        }
+    }
+
+    /**
+     * Finds the topic id for the given join code
+     *
+     * @param joincode The join code of the topic you seek
+     * @return The topic id or null if no topic has this join code
+     */
+    public Long find(String joincode) {
+        Long topicid = topicIds.get(joincode);
+        if (topicid == null) {
+            topicid = topicRepository.findTopicIdByJoincode(joincode);
+            if (topicid != null) {
+                topicIds.put(joincode, topicid);
+            }
+        }
+        return topicid;
+    }
+
+    /**
+     * Adds the join code once the current transaction commits, or right away when there is none
+     */
+    public void put(String joincode, long topicid) {
+        afterCommit(() -> topicIds.put(joincode, topicid));
+    }
+
+    /**
+     * Removes the join code once the current transaction commits, or right away when there is none
+     */
+    public void remove(String joincode) {
+        afterCommit(() -> topicIds.remove(joincode));
+    }
+
+    public int size() {
+        return topicIds.size();
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.lambdaschool.apollo.services;
+
+import java.util.Set;
+
+/**
+ * Shares background jobs between the running instances of the API through the jobleases table,
+ * so a job split into shards runs each shard on exactly one live instance at a time
+ */
+public interface LeaseService {
+
+    /**
+     * Records that an instance is alive and extends every lease it holds
+     *
+     * @param instanceid The instance, see ClusterInstance
+     */
+    void heartbeat(String instanceid);
+
+    /**
+     * Brings the shards of a job an instance holds to its fair share: the number of shards divided by the number
+     * of live instances, rounded up. Free shards and shards whose holder stopped heartbeating are claimed,
+     * shards above the fair share are given up for the other instances to claim.
+     *
+     * @param instanceid The instance, see ClusterInstance
+     * @param job        The name of the job
+     * @param shards     How many shards the job has
+     * @return The shards the instance holds afterwards, from 0 to shards - 1
+     */
+    Set<Integer> claim(String instanceid, String job, int shards);
+
+    /**
+     * Holds exactly one shard of a job for an instance, for jobs where each instance needs a number of its own
+     * rather than a share of the work. Returns the shard the instance already holds, or claims the lowest free one.
+     * Runs in a transaction of its own, so it can be called from within another one.
+     *
+     * @param instanceid The instance, see ClusterInstance
+     * @param job        The name of the job
+     * @param shards     How many shards the job has
+     * @return The shard the instance holds, null when every shard is held by another live instance
+     */
+    Integer claimOne(String instanceid, String job, int shards);
+
+    /**
+     * Gives up every lease of an instance and forgets it, so the other instances take over its shards at once
+     *
+     * @param instanceid The instance, see ClusterInstance
+     */
+    void leave(String instanceid);
+}
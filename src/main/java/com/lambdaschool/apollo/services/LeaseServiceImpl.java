@@ -0,0 +1,176 @@
+package com.lambdaschool.apollo.services;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Every time is read from the database, so instances whose clocks disagree still agree on who holds what.
+ * Free shards are claimed with SELECT ... FOR UPDATE SKIP LOCKED on PostgreSQL, so instances claiming
+ * at the same time each get different shards instead of waiting on each other. H2 has no SKIP LOCKED
+ * and waits instead, which only makes claiming slower.
+ */
+@Transactional
+@Service(value = "leaseService")
+public class LeaseServiceImpl implements LeaseService {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * How long a lease and an instance heartbeat last. Keep it a few heartbeat intervals long
+     */
+    @Value("${apollo.cluster.lease-ttl-ms:30000}")
+    private long leaseTtlMs;
+
+    @Value("${local.run.db:H2}")
+    private String db;
+
+    private static final String SELECT_NOW = "SELECT CURRENT_TIMESTAMP";
+
+    private static final String UPDATE_INSTANCE = "UPDATE appinstances SET heartbeatat = ? WHERE instanceid = ?";
+
+    private static final String INSERT_INSTANCE = "INSERT INTO appinstances(instanceid, heartbeatat) VALUES (?, ?)";
+
+    private static final String DELETE_INSTANCE = "DELETE FROM appinstances WHERE instanceid = ?";
+
+    /**
+     * Instances that stopped heartbeating long ago, their leases have expired and been claimed by then
+     */
+    private static final String DELETE_DEAD_INSTANCES = "DELETE FROM appinstances WHERE heartbeatat < ?";
+
+    private static final String COUNT_LIVE_INSTANCES = "SELECT COUNT(*) FROM appinstances WHERE heartbeatat > ?";
+
+    private static final String RENEW_LEASES = "UPDATE jobleases SET expiresat = ? WHERE holder = ?";
+
+    private static final String RELEASE_LEASES = "UPDATE jobleases SET holder = NULL, expiresat = NULL WHERE holder = ?";
+
+    private static final String RELEASE_LEASE = "UPDATE jobleases SET holder = NULL, expiresat = NULL " +
+            "WHERE job = ? AND shard = ? AND holder = ?";
+
+    private static final String SELECT_SHARDS = "SELECT shard FROM jobleases WHERE job = ?";
+
+    private static final String INSERT_SHARD = "INSERT INTO jobleases(leaseid, job, shard) " +
+            "VALUES (NEXTVAL('hibernate_sequence'), ?, ?)";
+
+    private static final String SELECT_HELD = "SELECT shard FROM jobleases " +
+            "WHERE job = ? AND holder = ? AND shard < ? ORDER BY shard";
+
+    /**
+     * Locks the free shards it returns until the claim commits. Shards another claim has locked are skipped
+     * on PostgreSQL, see claimQuery
+     */
+    private static final String SELECT_FREE = "SELECT shard FROM jobleases " +
+            "WHERE job = ? AND shard < ? AND (holder IS NULL OR expiresat <= ?) " +
+            "ORDER BY shard LIMIT ? FOR UPDATE";
+
+    private static final String TAKE_LEASE = "UPDATE jobleases SET holder = ?, expiresat = ? WHERE job = ? AND shard = ?";
+
+    @Transactional
+    @Override
+    public void heartbeat(String instanceid) {
+        Timestamp now = now();
+        Timestamp expires = new Timestamp(now.getTime() + leaseTtlMs);
+        if (jdbcTemplate.update(UPDATE_INSTANCE, now, instanceid) == 0) {
+            jdbcTemplate.update(INSERT_INSTANCE, instanceid, now);
+        }
+        jdbcTemplate.update(RENEW_LEASES, expires, instanceid);
+    }
+
+    @Transactional
+    @Override
+    public Set<Integer> claim(String instanceid, String job, int shards) {
+        createShards(job, shards);
+        heartbeat(instanceid);
+
+        Timestamp now = now();
+        jdbcTemplate.update(DELETE_DEAD_INSTANCES, new Timestamp(now.getTime() - 10 * leaseTtlMs));
+        Long live = jdbcTemplate.queryForObject(COUNT_LIVE_INSTANCES, Long.class, new Timestamp(now.getTime() - leaseTtlMs));
+        int share = (int) ((shards + Math.max(1, live) - 1) / Math.max(1, live));
+
+        Set<Integer> held = new TreeSet<>(jdbcTemplate.queryForList(SELECT_HELD, Integer.class, job, instanceid, shards));
+        if (held.size() > share) {
+            // give up the highest shards, the instances below their share claim them on their next run
+            List<Object[]> released = new ArrayList<>();
+            List<Integer> order = new ArrayList<>(held);
+            for (int shard : order.subList(share, order.size())) {
+                released.add(new Object[]{job, shard, instanceid});
+                held.remove(shard);
+            }
+            jdbcTemplate.batchUpdate(RELEASE_LEASE, released);
+        } else if (held.size() < share) {
+            Timestamp expires = new Timestamp(now.getTime() + leaseTtlMs);
+            List<Object[]> taken = new ArrayList<>();
+            for (int shard : jdbcTemplate.queryForList(claimQuery(), Integer.class, job, shards, now, share - held.size())) {
+                taken.add(new Object[]{instanceid, expires, job, shard});
+                held.add(shard);
+            }
+            if (!taken.isEmpty()) {
+                jdbcTemplate.batchUpdate(TAKE_LEASE, taken);
+            }
+        }
+        return held;
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Override
+    public Integer claimOne(String instanceid, String job, int shards) {
+        createShards(job, shards);
+        heartbeat(instanceid);
+
+        List<Integer> held = jdbcTemplate.queryForList(SELECT_HELD, Integer.class, job, instanceid, shards);
+        if (!held.isEmpty()) {
+            return held.get(0);
+        }
+        Timestamp now = now();
+        List<Integer> free = jdbcTemplate.queryForList(claimQuery(), Integer.class, job, shards, now, 1);
+        if (free.isEmpty()) {
+            return null;
+        }
+        int shard = free.get(0);
+        jdbcTemplate.update(TAKE_LEASE, instanceid, new Timestamp(now.getTime() + leaseTtlMs), job, shard);
+        return shard;
+    }
+
+    @Transactional
+    @Override
+    public void leave(String instanceid) {
+        jdbcTemplate.update(RELEASE_LEASES, instanceid);
+        jdbcTemplate.update(DELETE_INSTANCE, instanceid);
+    }
+
+    private Timestamp now() {
+        return jdbcTemplate.queryForObject(SELECT_NOW, Timestamp.class);
+    }
+
+    private String claimQuery() {
+        return db.equalsIgnoreCase("POSTGRESQL") ? SELECT_FREE + " SKIP LOCKED" : SELECT_FREE;
+    }
+
+    /**
+     * Adds the lease rows of shards the job does not have yet, the first time it runs or when it gets more shards.
+     * Two instances doing so at once make one claim fail on jobleases_job_shard_key, it succeeds the next time.
+     */
+    private void createShards(String job, int shards) {
+        Set<Integer> existing = new HashSet<>(jdbcTemplate.queryForList(SELECT_SHARDS, Integer.class, job));
+        List<Object[]> missing = new ArrayList<>();
+        for (int shard = 0; shard < shards; shard++) {
+            if (!existing.contains(shard)) {
+                missing.add(new Object[]{job, shard});
+            }
+        }
+        if (!missing.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SHARD, missing);
+        }
+    }
+}
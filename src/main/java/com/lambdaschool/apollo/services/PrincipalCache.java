@@ -0,0 +1,102 @@
+package com.lambdaschool.apollo.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.lambdaschool.apollo.models.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * Bounded, time limited cache of the users behind authenticated principals, keyed by the lower cased Okta user name.
+ * <p>
+ * Cached users are detached. They are good for ids, user names and ownership checks;
+ * anything that needs the user's collections should read the user again by id.
+ * Hits, misses and evictions are exported as the cache metrics of "principals".
+ */
+@Component
+public class PrincipalCache {
+    private final Cache<String, User> cache;
+
+    public PrincipalCache(
+            @Value("${apollo.principal-cache.max-size:10000}") long maxSize,
+            @Value("${apollo.principal-cache.ttl:PT5M}") Duration ttl,
+            MeterRegistry meterRegistry) {
+        this.cache = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .<String, User>build(), "principals");
+    }
+
+    /**
+     * @param name The Okta user name
+     * @return The cached user for the given name, or null on a miss
+     */
+    public User get(String name) {
+        return cache.getIfPresent(name.toLowerCase());
+    }
+
+    /**
+     * Caches the user for the given name once the current transaction commits, so a user created
+     * by a transaction that rolls back is never cached. Without a transaction the user is cached now.
+     *
+     * @param name The Okta user name
+     * @param user The user read or created for that name
+     */
+    public void putAfterCommit(String name, User user) {
+        String key = name.toLowerCase();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.put(key, user);
+                }
+            });
+        } else {
+            cache.put(key, user);
+        }
+    }
+
+    /**
+     * Drops every cached entry for the given user now and again once the current transaction commits,
+     * so a load racing the transaction cannot leave the old state behind.
+     *
+     * @param userid The primary key of the user that changed
+     */
+    public void evict(long userid) {
+        evictNow(userid);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictNow(userid);
+                }
+            });
+        }
+    }
+
+    private void evictNow(long userid) {
+        cache.asMap()
+                .values()
+                .removeIf(u -> u.getUserid() == userid);
+    }
+
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+}
@@ -0,0 +1,46 @@
+package com.lambdaschool.apollo.services;
+
+import com.lambdaschool.apollo.models.Question;
+import com.lambdaschool.apollo.views.QuestionBody;
+import com.lambdaschool.apollo.views.SurveySummary;
+
+import java.util.List;
+import java.util.Map;
+
+public interface QuestionAggregateService {
+
+    /**
+     * Locks the aggregated questions of answers about to be saved, so concurrent submissions to them wait for this
+     * transaction to end. Has to run before the answers are inserted: on PostgreSQL the insert's foreign key check
+     * takes a KEY SHARE lock on the questions, and two submissions that both inserted would then deadlock asking for
+     * the FOR UPDATE lock taken here.
+     *
+     * @param answers   The answers about to be saved
+     * @param questions The questions of those answers by question id
+     */
+    void lock(List<QuestionBody> answers, Map<Long, Question> questions);
+
+    /**
+     * Adds newly saved answers to the aggregates of their questions. Has to run in the transaction
+     * that saved the answers, after lock was called for them. Answers to TEXT questions are skipped.
+     *
+     * @param answers   The answers that were saved
+     * @param questions The questions of those answers by question id
+     */
+    void record(List<QuestionBody> answers, Map<Long, Question> questions);
+
+    /**
+     * Recomputes the aggregates of the questions of a survey from its answers
+     *
+     * @param surveyid The survey id of the survey
+     */
+    void rebuild(long surveyid);
+
+    /**
+     * Reads the aggregated results of a survey with two queries, no matter how many answers it has
+     *
+     * @param surveyid The survey id of the survey
+     * @return The results of each question of the survey
+     */
+    SurveySummary findSummary(long surveyid);
+}
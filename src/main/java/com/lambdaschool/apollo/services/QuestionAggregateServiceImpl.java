@@ -0,0 +1,198 @@
+package com.lambdaschool.apollo.services;
+
+import com.lambdaschool.apollo.models.AggregateBucket;
+import com.lambdaschool.apollo.models.Question;
+import com.lambdaschool.apollo.models.QuestionAggregate;
+import com.lambdaschool.apollo.repository.AggregateBucketRepository;
+import com.lambdaschool.apollo.repository.AnswerRepository;
+import com.lambdaschool.apollo.repository.QuestionAggregateRepository;
+import com.lambdaschool.apollo.repository.QuestionRepository;
+import com.lambdaschool.apollo.views.AggregateBucketRow;
+import com.lambdaschool.apollo.views.AnswerRow;
+import com.lambdaschool.apollo.views.BucketSummary;
+import com.lambdaschool.apollo.views.QuestionAggregateRow;
+import com.lambdaschool.apollo.views.QuestionBody;
+import com.lambdaschool.apollo.views.QuestionSummary;
+import com.lambdaschool.apollo.views.SurveySummary;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+@Transactional
+@Service(value = "questionAggregateService")
+public class QuestionAggregateServiceImpl implements QuestionAggregateService {
+    @Autowired
+    private QuestionAggregateRepository aggregateRepository;
+
+    @Autowired
+    private AggregateBucketRepository bucketRepository;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private AnswerRepository answerRepository;
+
+    @Transactional
+    @Override
+    public void lock(List<QuestionBody> answers, Map<Long, Question> questions) {
+        Set<Long> ids = new TreeSet<>();
+        for (QuestionBody qb : answers) {
+            Question question = questions.get(qb.getQuestionid());
+            if (question != null && AnswerDelta.isAggregated(question.getType())) {
+                ids.add(question.getQuestionid());
+            }
+        }
+        if (!ids.isEmpty()) {
+            lock(ids);
+        }
+    }
+
+    @Transactional
+    @Override
+    public void record(List<QuestionBody> answers, Map<Long, Question> questions) {
+        Map<Long, AnswerDelta> deltas = new TreeMap<>();
+        for (QuestionBody qb : answers) {
+            Question question = questions.get(qb.getQuestionid());
+            if (question != null && AnswerDelta.isAggregated(question.getType())) {
+                deltas.computeIfAbsent(question.getQuestionid(), id -> new AnswerDelta(question.getType())).add(qb.getBody());
+            }
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+        // locked by lock before the answers were inserted
+        apply(deltas, questions, false);
+    }
+
+    @Transactional
+    @Override
+    public void rebuild(long surveyid) {
+        Map<Long, AnswerDelta> deltas = new TreeMap<>();
+        for (Question question : questionRepository.findAllBySurvey_Surveyid(surveyid)) {
+            if (AnswerDelta.isAggregated(question.getType())) {
+                deltas.put(question.getQuestionid(), new AnswerDelta(question.getType()));
+            }
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Question> locked = lock(deltas.keySet());
+        try (Stream<AnswerRow> rows = answerRepository.streamBySurveyId(surveyid)) {
+            rows.forEach(row -> {
+                AnswerDelta delta = deltas.get(row.getQuestionid());
+                if (delta != null) {
+                    delta.add(row.getAnswer());
+                }
+            });
+        }
+        apply(deltas, locked, true);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public SurveySummary findSummary(long surveyid) {
+        Map<Long, QuestionSummary> questions = new LinkedHashMap<>();
+        for (QuestionAggregateRow row : aggregateRepository.findRowsBySurveyId(surveyid)) {
+            questions.put(row.getQuestionid(), new QuestionSummary(row));
+        }
+        if (!questions.isEmpty()) {
+            for (AggregateBucketRow row : bucketRepository.findRowsBySurveyId(surveyid)) {
+                QuestionSummary question = questions.get(row.getQuestionid());
+                if (question != null) {
+                    question.getBuckets().add(new BucketSummary(row.getLabel(), row.getAnswercount()));
+                }
+            }
+        }
+
+        SurveySummary summary = new SurveySummary(surveyid);
+        summary.setQuestions(new ArrayList<>(questions.values()));
+        return summary;
+    }
+
+    /**
+     * Locks the questions, so concurrent submissions to the same questions wait for this transaction to end
+     * and the read, add, write in apply cannot lose an update. Locking a question this transaction already
+     * inserted answers for can deadlock on PostgreSQL, see QuestionAggregateService.lock
+     */
+    private Map<Long, Question> lock(Iterable<Long> questionids) {
+        List<Long> ids = new ArrayList<>();
+        questionids.forEach(ids::add);
+        Map<Long, Question> locked = new HashMap<>();
+        for (Question question : questionRepository.lockByQuestionidIn(ids)) {
+            locked.put(question.getQuestionid(), question);
+        }
+        return locked;
+    }
+
+    /**
+     * Adds the deltas to the stored aggregates and buckets, creating those that do not exist yet.
+     * When replacing, the deltas take the place of what is stored and buckets missing from them are removed.
+     * Two queries read what is stored, the changes are written when the transaction is flushed.
+     */
+    private void apply(Map<Long, AnswerDelta> deltas, Map<Long, Question> questions, boolean replace) {
+        Map<Long, QuestionAggregate> aggregates = new HashMap<>();
+        for (QuestionAggregate aggregate : aggregateRepository.findAllById(deltas.keySet())) {
+            aggregates.put(aggregate.getQuestionid(), aggregate);
+        }
+        Map<Long, Map<String, AggregateBucket>> buckets = new HashMap<>();
+        for (AggregateBucket bucket : bucketRepository.findByQuestionIds(deltas.keySet())) {
+            buckets.computeIfAbsent(bucket.getQuestion().getQuestionid(), id -> new HashMap<>())
+                    .put(bucket.getLabel(), bucket);
+        }
+
+        for (Map.Entry<Long, AnswerDelta> entry : deltas.entrySet()) {
+            Question question = questions.get(entry.getKey());
+            if (question == null) {
+                // deleted since the answers were read
+                continue;
+            }
+            AnswerDelta delta = entry.getValue();
+
+            QuestionAggregate aggregate = aggregates.get(entry.getKey());
+            if (aggregate == null) {
+                aggregate = aggregateRepository.save(new QuestionAggregate(question));
+            } else if (replace) {
+                aggregate.setAnswercount(0);
+                aggregate.setValuecount(0);
+                aggregate.setTotal(0);
+                aggregate.setMinimum(null);
+                aggregate.setMaximum(null);
+            }
+            aggregate.setAnswercount(aggregate.getAnswercount() + delta.count);
+            aggregate.setValuecount(aggregate.getValuecount() + delta.valuecount);
+            aggregate.setTotal(aggregate.getTotal() + delta.total);
+            aggregate.setMinimum(AnswerDelta.min(aggregate.getMinimum(), delta.min));
+            aggregate.setMaximum(AnswerDelta.max(aggregate.getMaximum(), delta.max));
+
+            Map<String, AggregateBucket> stored = buckets.getOrDefault(entry.getKey(), new HashMap<>());
+            if (replace) {
+                for (AggregateBucket bucket : stored.values()) {
+                    if (delta.buckets.containsKey(bucket.getLabel())) {
+                        bucket.setAnswercount(0);
+                    } else {
+                        bucketRepository.delete(bucket);
+                    }
+                }
+            }
+            for (AnswerDelta.Bucket b : delta.buckets.values()) {
+                AggregateBucket bucket = stored.get(b.label);
+                if (bucket == null) {
+                    bucket = bucketRepository.save(new AggregateBucket(question, b.label, b.value));
+                }
+                bucket.setAnswercount(bucket.getAnswercount() + b.count);
+            }
+        }
+    }
+}
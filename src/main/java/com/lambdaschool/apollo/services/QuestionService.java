@@ -1,6 +1,7 @@
 package com.lambdaschool.apollo.services;
 
 import com.lambdaschool.apollo.models.Question;
+import com.lambdaschool.apollo.views.KeysetPage;
 
 import java.util.List;
 
@@ -16,5 +17,7 @@ public interface QuestionService {
 
     List<Question> findAllQuestions();
 
+    KeysetPage<Question> findQuestionsPage(long after, Integer size, Long surveyid);
+
     List<Question> findAllBySurveyId(long surveyId);
 }
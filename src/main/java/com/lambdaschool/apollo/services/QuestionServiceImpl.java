@@ -2,13 +2,17 @@ package com.lambdaschool.apollo.services;
 
 import com.lambdaschool.apollo.exceptions.ResourceNotFoundException;
 import com.lambdaschool.apollo.models.Question;
+import com.lambdaschool.apollo.models.QuestionTemplate;
 import com.lambdaschool.apollo.models.Survey;
 import com.lambdaschool.apollo.repository.QuestionRepository;
+import com.lambdaschool.apollo.views.KeysetPage;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 @Transactional
@@ -21,6 +25,10 @@ public class QuestionServiceImpl implements QuestionService {
     @Autowired
     private SurveyService surveyService;
 
+    @Autowired
+    private QuestionTemplateService questionTemplateService;
+
+    @Transactional(readOnly = true)
     @Override
     public Question findById(long id) throws ResourceNotFoundException{
 
@@ -28,6 +36,7 @@ public class QuestionServiceImpl implements QuestionService {
                 .orElseThrow(() -> new ResourceNotFoundException("Question " + id + " Not Found"));
     }
 
+    @Transactional(readOnly = true)
     @Override
     public List<Question> findAllQuestions() {
         List<Question> q = new ArrayList<>();
@@ -36,6 +45,20 @@ public class QuestionServiceImpl implements QuestionService {
         return q;
     }
 
+    @Transactional(readOnly = true)
+    @Override
+    public KeysetPage<Question> findQuestionsPage(long after, Integer size, Long surveyid) {
+        Pageable limit = KeysetPage.limit(size);
+        List<Question> q;
+        if (surveyid == null) {
+            q = questionRepository.findByQuestionidGreaterThanOrderByQuestionidAsc(after, limit);
+        } else {
+            q = questionRepository.findByQuestionidGreaterThanAndSurvey_SurveyidOrderByQuestionidAsc(after, surveyid, limit);
+        }
+        return KeysetPage.of(q, limit.getPageSize(), Question::getQuestionid);
+    }
+
+    @Transactional(readOnly = true)
     @Override
     public List<Question> findAllBySurveyId(long surveyId) {
         List<Question> q = new ArrayList<>();
@@ -78,8 +101,15 @@ public class QuestionServiceImpl implements QuestionService {
             Question oldQuestion = questionRepository.findById(question.getQuestionid())
                     .orElseThrow(() -> new ResourceNotFoundException("Question " + question.getQuestionid() + " Not Found"));
             newQuestion.setQuestionid(question.getQuestionid());
+            // an edited question keeps its template, a new text only overrides the template's for this question
+            newQuestion.setTemplate(oldQuestion.getTemplate());
+        } else if (question.getBody() != null && question.getType() != null) {
+            newQuestion.setTemplate(questionTemplateService.intern(
+                    Collections.singletonList(new QuestionTemplate(question.getBody(), question.getType()))).get(0));
+        }
+        if (newQuestion.getTemplate() == null || !newQuestion.getTemplate().getBody().equals(question.getBody())) {
+            newQuestion.setBody(question.getBody());
         }
-        newQuestion.setBody(question.getBody());
         newQuestion.setLeader(question.isLeader());
         newQuestion.setType(question.getType());
         Survey survey = surveyService.findById(question.getSurvey().getSurveyid());
@@ -0,0 +1,17 @@
+package com.lambdaschool.apollo.services;
+
+import com.lambdaschool.apollo.models.QuestionTemplate;
+
+import java.util.List;
+
+public interface QuestionTemplateService {
+
+    /**
+     * Finds the stored templates with the given contents, creating those that do not exist yet.
+     * Takes one query when all exist and three statements when some do not, however many there are.
+     *
+     * @param contents Templates made with QuestionTemplate(body, type), duplicates allowed
+     * @return The stored templates, in the order of the given contents
+     */
+    List<QuestionTemplate> intern(List<QuestionTemplate> contents);
+}
@@ -0,0 +1,90 @@
+package com.lambdaschool.apollo.services;
+
+import com.lambdaschool.apollo.exceptions.ResourceFoundException;
+import com.lambdaschool.apollo.models.QuestionTemplate;
+import com.lambdaschool.apollo.repository.QuestionTemplateRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Transactional
+@Service(value = "questionTemplateService")
+public class QuestionTemplateServiceImpl implements QuestionTemplateService {
+
+    @Autowired
+    private QuestionTemplateRepository templateRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${local.run.db:H2}")
+    private String db;
+
+    /**
+     * Inserts a template unless it exists. Two transactions inserting the same template at once both pass
+     * NOT EXISTS; on PostgreSQL ON CONFLICT lets the second one through without an error
+     */
+    private static final String INSERT_TEMPLATE = "INSERT INTO questiontemplates(templateid, hash, body, type) " +
+            "SELECT NEXTVAL('hibernate_sequence'), ?, ?, ? %s " +
+            "WHERE NOT EXISTS (SELECT 1 FROM questiontemplates WHERE hash = ?)%s";
+
+    @Transactional
+    @Override
+    public List<QuestionTemplate> intern(List<QuestionTemplate> contents) {
+        if (contents.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<String, QuestionTemplate> wanted = new LinkedHashMap<>();
+        for (QuestionTemplate content : contents) {
+            if (content.getBody() == null || content.getType() == null) {
+                throw new ResourceFoundException("Every question needs a body and a type");
+            }
+            wanted.putIfAbsent(content.getHash(), content);
+        }
+
+        Map<String, QuestionTemplate> stored = byHash(templateRepository.findByHashIn(wanted.keySet()));
+        List<Object[]> missing = new ArrayList<>();
+        for (QuestionTemplate content : wanted.values()) {
+            if (!stored.containsKey(content.getHash())) {
+                missing.add(new Object[]{content.getHash(), content.getBody(), content.getType().ordinal(), content.getHash()});
+            }
+        }
+        if (!missing.isEmpty()) {
+            jdbcTemplate.batchUpdate(insertQuery(), missing);
+            List<String> created = new ArrayList<>();
+            for (Object[] row : missing) {
+                created.add((String) row[0]);
+            }
+            stored.putAll(byHash(templateRepository.findByHashIn(created)));
+        }
+
+        List<QuestionTemplate> templates = new ArrayList<>();
+        for (QuestionTemplate content : contents) {
+            templates.add(stored.get(content.getHash()));
+        }
+        return templates;
+    }
+
+    private String insertQuery() {
+        if (db.equalsIgnoreCase("POSTGRESQL")) {
+            return String.format(INSERT_TEMPLATE, "", " ON CONFLICT (hash) DO NOTHING");
+        }
+        return String.format(INSERT_TEMPLATE, "FROM DUAL", "");
+    }
+
+    private static Map<String, QuestionTemplate> byHash(List<QuestionTemplate> templates) {
+        Map<String, QuestionTemplate> map = new HashMap<>();
+        for (QuestionTemplate template : templates) {
+            map.put(template.getHash(), template);
+        }
+        return map;
+    }
+}
@@ -0,0 +1,46 @@
+package com.lambdaschool.apollo.services;
+
+import com.lambdaschool.apollo.views.TopicFrequency;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.Date;
+
+/**
+ * When scheduled survey requests go out: the time of day and the time zone every topic's frequency is read in
+ */
+@Component
+public class RequestSchedule {
+
+    @Value("${apollo.scheduler.time-zone:UTC}")
+    private String timeZone;
+
+    @Value("${apollo.scheduler.request-time:09:00}")
+    private String requestTime;
+
+    /**
+     * @param frequency The frequency of a topic, may be null
+     * @param after     The time to start from, exclusive
+     * @return The first time a request is due after the given time, null for a topic without a frequency
+     */
+    public Date nextDue(TopicFrequency frequency, Date after) {
+        if (frequency == null) {
+            return null;
+        }
+        ZoneId zone = ZoneId.of(timeZone);
+        return Date.from(frequency.nextDue(after.toInstant().atZone(zone).toLocalDateTime(), LocalTime.parse(requestTime))
+                .atZone(zone)
+                .toInstant());
+    }
+
+    /**
+     * @param due A due time handed out by nextDue
+     * @return The day the request is due on, which identifies it per topic
+     */
+    public LocalDate period(Date due) {
+        return due.toInstant().atZone(ZoneId.of(timeZone)).toLocalDate();
+    }
+}
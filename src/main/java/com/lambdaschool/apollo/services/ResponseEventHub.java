@@ -0,0 +1,275 @@
+package com.lambdaschool.apollo.services;
+
+import com.lambdaschool.apollo.views.ResponseEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fans the response events of this instance out to the Server-Sent Events streams watching each survey request.
+ * <p>
+ * Publishing never waits on a client: every stream has a buffer of its own, which a pool of sender threads
+ * drains. When a client reads slower than events arrive, the oldest events in its buffer are dropped and the client
+ * is sent a "dropped" event instead, after which it should read the summary again. Streams are sent a comment every
+ * heartbeat interval, so proxies keep idle connections open and dead clients are noticed.
+ * <p>
+ * A send blocks while the client's socket is full. A stream whose send takes longer than apollo.sse.send-timeout-ms
+ * is dropped at the next heartbeat, so it never takes another sender, and the blocked send ends with the container's
+ * write timeout (server.connection-timeout). The pool grows up to apollo.sse.threads, so a few stalled clients do not
+ * hold up the other streams meanwhile.
+ * <p>
+ * Events only reach the streams of the instance the submission was made on.
+ */
+@Component
+public class ResponseEventHub {
+    private static final Logger logger = LoggerFactory.getLogger(ResponseEventHub.class);
+
+    /**
+     * Events kept per stream while it is being written to
+     */
+    @Value("${apollo.sse.buffer-size:64}")
+    private int bufferSize;
+
+    /**
+     * How long a stream stays open, EventSource clients reconnect on their own
+     */
+    @Value("${apollo.sse.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    /**
+     * Most sender threads at once, idle ones stop after a minute
+     */
+    @Value("${apollo.sse.threads:16}")
+    private int threads;
+
+    /**
+     * How long a send may block before the stream is dropped
+     */
+    @Value("${apollo.sse.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    private ExecutorService sender;
+
+    @PostConstruct
+    public void start() {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory("sse-"));
+        // starts a thread per drain up to threads, not only once the queue is full
+        pool.allowCoreThreadTimeOut(true);
+        sender = pool;
+    }
+
+    @PreDestroy
+    public void stop() {
+        sender.shutdownNow();
+        for (Set<Subscriber> streams : subscribers.values()) {
+            for (Subscriber subscriber : streams) {
+                subscriber.emitter.complete();
+            }
+        }
+    }
+
+    /**
+     * Opens a stream of the response events of a survey request
+     *
+     * @param surveyid The survey id of the survey request
+     * @return The stream, to return from the controller
+     */
+    public SseEmitter subscribe(long surveyid) {
+        return subscribe(surveyid, new SseEmitter(timeoutMs));
+    }
+
+    SseEmitter subscribe(long surveyid, SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(surveyid, emitter);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        subscribers.compute(surveyid, (id, streams) -> {
+            Set<Subscriber> set = streams == null ? new CopyOnWriteArraySet<>() : streams;
+            set.add(subscriber);
+            return set;
+        });
+        return emitter;
+    }
+
+    /**
+     * @return Whether anyone on this instance is watching the survey request, so events nobody reads are not built
+     */
+    public boolean hasSubscribers(long surveyid) {
+        Set<Subscriber> streams = subscribers.get(surveyid);
+        return streams != null && !streams.isEmpty();
+    }
+
+    /**
+     * Queues the event on every stream of its survey request and returns at once
+     */
+    public void publish(ResponseEvent event) {
+        Set<Subscriber> streams = subscribers.get(event.getSurveyid());
+        if (streams == null) {
+            return;
+        }
+        for (Subscriber subscriber : streams) {
+            subscriber.offer(event);
+        }
+    }
+
+    /**
+     * Queues a heartbeat on every stream and drops the streams whose send has been blocked too long
+     */
+    @Scheduled(fixedDelayString = "${apollo.sse.heartbeat-ms:15000}")
+    public void heartbeat() {
+        long now = System.currentTimeMillis();
+        for (Set<Subscriber> streams : subscribers.values()) {
+            for (Subscriber subscriber : streams) {
+                long started = subscriber.sendingSince;
+                if (started != 0 && now - started > sendTimeoutMs) {
+                    logger.debug("Dropping stalled response stream of survey {}", subscriber.surveyid);
+                    subscriber.close();
+                } else {
+                    subscriber.beat();
+                }
+            }
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.surveyid, (id, streams) -> {
+            streams.remove(subscriber);
+            return streams.isEmpty() ? null : streams;
+        });
+    }
+
+    /**
+     * One stream and its buffer. At most one sender thread drains it at a time
+     */
+    private final class Subscriber {
+        private final long surveyid;
+        private final SseEmitter emitter;
+        private final ArrayDeque<ResponseEvent> buffer = new ArrayDeque<>();
+        private long dropped;
+        private boolean heartbeat;
+        private boolean draining;
+        private boolean closed;
+
+        /**
+         * When the send in progress started, 0 when none is
+         */
+        private volatile long sendingSince;
+
+        Subscriber(long surveyid, SseEmitter emitter) {
+            this.surveyid = surveyid;
+            this.emitter = emitter;
+        }
+
+        void offer(ResponseEvent event) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                if (buffer.size() >= bufferSize) {
+                    buffer.pollFirst();
+                    dropped++;
+                }
+                buffer.addLast(event);
+            }
+            schedule();
+        }
+
+        void beat() {
+            synchronized (this) {
+                heartbeat = true;
+            }
+            schedule();
+        }
+
+        /**
+         * Stops sending to the stream. The emitter is completed by the drain once its blocked send returns,
+         * completing it now would wait for that send too
+         */
+        void close() {
+            remove(this);
+            synchronized (this) {
+                closed = true;
+                buffer.clear();
+            }
+        }
+
+        private void schedule() {
+            synchronized (this) {
+                if (draining || closed) {
+                    return;
+                }
+                draining = true;
+            }
+            sender.execute(this::drain);
+        }
+
+        private void drain() {
+            while (true) {
+                ResponseEvent event;
+                long lost;
+                boolean beat;
+                boolean stop;
+                synchronized (this) {
+                    stop = closed;
+                    lost = dropped;
+                    dropped = 0;
+                    event = buffer.pollFirst();
+                    beat = heartbeat && event == null && lost == 0;
+                    heartbeat = false;
+                    if (stop || (event == null && lost == 0 && !beat)) {
+                        draining = false;
+                    }
+                }
+                if (stop) {
+                    // dropped for stalling, the send that stalled has returned
+                    emitter.complete();
+                    return;
+                }
+                if (event == null && lost == 0 && !beat) {
+                    return;
+                }
+                sendingSince = System.currentTimeMillis();
+                try {
+                    if (lost > 0) {
+                        emitter.send(SseEmitter.event().name("dropped").data(lost));
+                    }
+                    if (event != null) {
+                        emitter.send(SseEmitter.event().name("response").data(event));
+                    } else if (beat) {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    // the client went away or the stream timed out, the container completes the emitter
+                    logger.debug("Closing response stream of survey {}: {}", surveyid, e.getMessage());
+                    close();
+                    synchronized (this) {
+                        draining = false;
+                    }
+                    return;
+                } finally {
+                    sendingSince = 0;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.lambdaschool.apollo.services;
+
+import com.lambdaschool.apollo.repository.TopicRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Sends the survey requests of every topic whose frequency makes one due. Each run reads the due topics
+ * in batches off topics_nextrequestdate_idx and sends them in chunks, one transaction per chunk, on a small
+ * pool of its own so a Monday morning with many weekly topics does not hold up other scheduled work.
+ * A chunk that fails is rolled back and its topics are picked up again by the next run.
+ * <p>
+ * With several instances running, the topics are split into shards and each instance only sends the requests
+ * of the shards it holds a lease on, see ClusterInstance. Should two instances still send for the same topic,
+ * such as right after a shard changed hands, only the one that moves the topic on sends its request.
+ */
+@Component
+@ConditionalOnProperty(name = "apollo.scheduler.enabled", havingValue = "true", matchIfMissing = true)
+public class SurveyRequestScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(SurveyRequestScheduler.class);
+
+    @Autowired
+    private TopicRepository topicRepository;
+
+    @Autowired
+    private TopicService topicService;
+
+    @Autowired
+    private SurveyService surveyService;
+
+    @Autowired
+    private ClusterInstance clusterInstance;
+
+    /**
+     * The leases the instances hold, see LeaseService
+     */
+    static final String JOB = "survey-requests";
+
+    /**
+     * How many parts the topics are split into between the instances. More shards than instances spread the
+     * topics more evenly, changing it moves most topics to another shard for one run
+     */
+    @Value("${apollo.scheduler.shards:16}")
+    private int shards;
+
+    /**
+     * How many due topics one run reads at a time
+     */
+    @Value("${apollo.scheduler.batch-size:1000}")
+    private int batchSize;
+
+    /**
+     * How many topics are sent in one transaction
+     */
+    @Value("${apollo.scheduler.chunk-size:100}")
+    private int chunkSize;
+
+    /**
+     * How many chunks are sent at once. Each holds a connection, keep it well below the pool size
+     */
+    @Value("${apollo.scheduler.threads:4}")
+    private int threads;
+
+    private ExecutorService executor;
+
+    private boolean backfilled;
+
+    @PostConstruct
+    public void start() {
+        executor = Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("survey-requests-"));
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdown();
+    }
+
+    @Scheduled(fixedDelayString = "${apollo.scheduler.poll-interval-ms:60000}")
+    public void run() {
+        Set<Integer> owned = clusterInstance.claim(JOB, shards);
+        if (owned.isEmpty()) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        if (!backfilled) {
+            // topics saved before the scheduler existed, new ones are scheduled when they are saved
+            backfilled = topicService.scheduleUnscheduledTopics(batchSize) < batchSize;
+        }
+
+        Date now = new Date(start);
+        int sent = 0;
+        while (true) {
+            List<Long> due = topicRepository.findDueTopicIds(now, shards, owned, PageRequest.of(0, batchSize));
+            if (due.isEmpty()) {
+                break;
+            }
+            int batch = send(due, now);
+            sent += batch;
+            if (batch == 0) {
+                // every chunk failed or was taken by another instance, leave the rest to the next run
+                break;
+            }
+        }
+
+        if (sent > 0) {
+            logger.info("Sent {} scheduled survey requests for shards {} in {} ms", sent, owned, System.currentTimeMillis() - start);
+        }
+    }
+
+    private int send(List<Long> topicids, Date now) {
+        List<Future<Integer>> chunks = new ArrayList<>();
+        for (int i = 0; i < topicids.size(); i += chunkSize) {
+            List<Long> chunk = topicids.subList(i, Math.min(i + chunkSize, topicids.size()));
+            chunks.add(executor.submit(() -> surveyService.saveScheduledRequests(chunk, now)));
+        }
+
+        int sent = 0;
+        for (Future<Integer> chunk : chunks) {
+            try {
+                sent += chunk.get();
+            } catch (ExecutionException e) {
+                logger.warn("Sending scheduled survey requests failed: {}", e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return sent;
+    }
+}
@@ -3,8 +3,11 @@ package com.lambdaschool.apollo.services;
 import com.lambdaschool.apollo.models.Question;
 import com.lambdaschool.apollo.models.Survey;
 import com.lambdaschool.apollo.models.Topic;
+import com.lambdaschool.apollo.views.KeysetPage;
 import com.lambdaschool.apollo.views.SurveyQuestion;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
 public interface SurveyService {
@@ -13,6 +16,10 @@ public interface SurveyService {
 
     List<Survey> findAllSurveys();
 
+    KeysetPage<Survey> findSurveysPage(long after, Integer size, Long topicid);
+
+    List<Survey> findLatestRequests(long topicid, Integer limit);
+
     void delete(long id);
 
     Survey save(Survey survey);
@@ -20,4 +27,15 @@ public interface SurveyService {
     Survey saveRequest(List<SurveyQuestion> questions, Topic topic);
 
     void removeQuestion(Survey survey, long id);
+
+    /**
+     * Sends the survey requests that are due for the given topics, each a copy of the topic's default survey,
+     * and moves every topic on to its next due time. A topic another transaction already moved on is skipped,
+     * so the same topic can be handed to this method twice without sending two requests.
+     *
+     * @param topicids The topics to send requests for, topics that are not due are skipped
+     * @param now      The time the topics are due at
+     * @return How many survey requests were sent
+     */
+    int saveScheduledRequests(Collection<Long> topicids, Date now);
 }
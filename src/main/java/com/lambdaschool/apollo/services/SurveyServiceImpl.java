@@ -3,13 +3,21 @@ package com.lambdaschool.apollo.services;
 import com.lambdaschool.apollo.exceptions.ResourceNotFoundException;
 import com.lambdaschool.apollo.models.*;
 import com.lambdaschool.apollo.repository.SurveyRepository;
+import com.lambdaschool.apollo.repository.TopicRepository;
 import com.lambdaschool.apollo.repository.UserRepository;
+import com.lambdaschool.apollo.views.DueTopic;
+import com.lambdaschool.apollo.views.KeysetPage;
 import com.lambdaschool.apollo.views.SurveyQuestion;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
 @Transactional
@@ -22,6 +30,44 @@ public class SurveyServiceImpl implements SurveyService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private TopicRepository topicRepository;
+
+    @Autowired
+    private UserAuditing userAuditing;
+
+    @Autowired
+    private RequestSchedule requestSchedule;
+
+    @Autowired
+    private QuestionTemplateService questionTemplateService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Moves a topic on only if it is still due at the time that was read, see saveScheduledRequests
+     */
+    private static final String ADVANCE_TOPIC = "UPDATE topics SET nextrequestdate = ? " +
+            "WHERE topicid = ? AND nextrequestdate = ?";
+
+    private static final String INSERT_SCHEDULED_REQUEST = "INSERT INTO surveys(surveyid, topicid, requestperiod, " +
+            "created_by, created_date, last_modified_by, last_modified_date) " +
+            "SELECT NEXTVAL('hibernate_sequence'), t.topicid, ?, ?, CURRENT_TIMESTAMP, ?, CURRENT_TIMESTAMP " +
+            "FROM topics t WHERE t.topicid = ? " +
+            "AND NOT EXISTS (SELECT 1 FROM surveys s WHERE s.topicid = t.topicid AND s.requestperiod = ?)";
+
+    /**
+     * Copies the questions of a topic's default survey into the request just inserted for it. The copies point
+     * at the same templates, so only the ids are copied for questions without a text of their own
+     */
+    private static final String INSERT_SCHEDULED_QUESTIONS = "INSERT INTO questions(questionid, templateid, body, is_leader, type, surveyid, " +
+            "created_by, created_date, last_modified_by, last_modified_date) " +
+            "SELECT NEXTVAL('hibernate_sequence'), q.templateid, q.body, q.is_leader, q.type, s.surveyid, ?, CURRENT_TIMESTAMP, ?, CURRENT_TIMESTAMP " +
+            "FROM surveys s JOIN topics t ON t.topicid = s.topicid JOIN questions q ON q.surveyid = t.surveyid " +
+            "WHERE s.topicid = ? AND s.requestperiod = ?";
+
+    @Transactional(readOnly = true)
     @Override
     public Survey findById(long id) {
         return surveyRepository.findById(id)
@@ -52,9 +98,17 @@ public class SurveyServiceImpl implements SurveyService {
 
         Survey newSurvey = new Survey(topic);
 
-        for (SurveyQuestion q: questions) {
+        // the questions point at the templates of their text instead of copying it
+        List<QuestionTemplate> contents = new ArrayList<>();
+        for (SurveyQuestion q : questions) {
+            contents.add(new QuestionTemplate(q.getBody(), q.getType()));
+        }
+        List<QuestionTemplate> templates = questionTemplateService.intern(contents);
+
+        for (int i = 0; i < questions.size(); i++) {
+            SurveyQuestion q = questions.get(i);
             // Create the question
-            Question question = new Question(q.getBody(), q.getLeader(), q.getType(), newSurvey);
+            Question question = new Question(templates.get(i), q.getLeader(), newSurvey);
             // If it is a leader question, attach an answer
             if (question.isLeader()) {
                 question.getAnswers().add(new Answer(q.getAnswer(), question, user, newSurvey));
@@ -67,6 +121,7 @@ public class SurveyServiceImpl implements SurveyService {
         return surveyRepository.save(newSurvey);
     }
 
+    @Transactional(readOnly = true)
     @Override
     public List<Survey> findAllSurveys() {
         List<Survey> list = new ArrayList<>();
@@ -74,6 +129,77 @@ public class SurveyServiceImpl implements SurveyService {
         return list;
     }
 
+    @Transactional(readOnly = true)
+    @Override
+    public KeysetPage<Survey> findSurveysPage(long after, Integer size, Long topicid) {
+        Pageable limit = KeysetPage.limit(size);
+        List<Survey> list;
+        if (topicid == null) {
+            list = surveyRepository.findBySurveyidGreaterThanOrderBySurveyidAsc(after, limit);
+        } else {
+            list = surveyRepository.findBySurveyidGreaterThanAndTopic_topicIdOrderBySurveyidAsc(after, topicid, limit);
+        }
+        return KeysetPage.of(list, limit.getPageSize(), Survey::getSurveyid);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public List<Survey> findLatestRequests(long topicid, Integer limit) {
+        return surveyRepository.findByTopic_topicIdOrderByCreatedDateDescSurveyidDesc(topicid, KeysetPage.limit(limit));
+    }
+
+    /**
+     * Works in set based statements rather than through saveRequest: one query reads the topics,
+     * then one batch each moves them on, inserts the requests and copies the default questions.
+     * The leader questions are copied without an answer, the leader answers them like any other request.
+     */
+    @Transactional
+    @Override
+    public int saveScheduledRequests(Collection<Long> topicids, Date now) {
+        if (topicids.isEmpty()) {
+            return 0;
+        }
+        List<DueTopic> due = topicRepository.findDueTopics(topicids, now);
+        if (due.isEmpty()) {
+            return 0;
+        }
+
+        List<Object[]> advances = new ArrayList<>();
+        for (DueTopic topic : due) {
+            Date next = requestSchedule.nextDue(topic.getFrequency(), now);
+            advances.add(new Object[]{next == null ? null : new Timestamp(next.getTime()),
+                    topic.getTopicid(), topic.getNextrequestdate()});
+        }
+        int[] advanced = jdbcTemplate.batchUpdate(ADVANCE_TOPIC, advances);
+
+        String uname = userAuditing.getCurrentAuditor().get();
+        List<Object[]> requests = new ArrayList<>();
+        for (int i = 0; i < due.size(); i++) {
+            DueTopic topic = due.get(i);
+            // a topic without a frequency is only unscheduled, one moved on by someone else is left to them
+            if (topic.getFrequency() != null && advanced[i] != 0) {
+                java.sql.Date period = java.sql.Date.valueOf(requestSchedule.period(topic.getNextrequestdate()));
+                requests.add(new Object[]{period, uname, uname, topic.getTopicid(), period});
+            }
+        }
+        if (requests.isEmpty()) {
+            return 0;
+        }
+
+        int[] inserted = jdbcTemplate.batchUpdate(INSERT_SCHEDULED_REQUEST, requests);
+        List<Object[]> questions = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            if (inserted[i] != 0) {
+                Object[] request = requests.get(i);
+                questions.add(new Object[]{uname, uname, request[3], request[0]});
+            }
+        }
+        if (!questions.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SCHEDULED_QUESTIONS, questions);
+        }
+        return questions.size();
+    }
+
     @Override
     public void removeQuestion(Survey survey, long id) {
         for (Question q : survey.getQuestions()) {
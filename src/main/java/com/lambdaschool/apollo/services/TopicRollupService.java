@@ -0,0 +1,40 @@
+package com.lambdaschool.apollo.services;
+
+import com.lambdaschool.apollo.models.Question;
+import com.lambdaschool.apollo.views.QuestionBody;
+import com.lambdaschool.apollo.views.RollupGranularity;
+import com.lambdaschool.apollo.views.TopicTrends;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+public interface TopicRollupService {
+
+    /**
+     * Adds newly saved answers to the day, week and month rollups of their topics. Has to run in the transaction
+     * that saved the answers. Answers to TEXT questions and to default surveys are skipped.
+     *
+     * @param answers   The answers that were saved
+     * @param questions The questions of those answers, with their survey and topic, by question id
+     */
+    void record(List<QuestionBody> answers, Map<Long, Question> questions);
+
+    /**
+     * Recomputes the rollups of a topic from the answers to all of its survey requests
+     *
+     * @param topicid The topic id of the topic
+     */
+    void rebuild(long topicid);
+
+    /**
+     * Reads the trends of each question of a topic with a single query
+     *
+     * @param topicid     The topic id of the topic
+     * @param granularity The length of the periods
+     * @param from        The first day of the range
+     * @param to          The last day of the range
+     * @return One trend per question body and type, each with one point per period that has answers
+     */
+    TopicTrends findTrends(long topicid, RollupGranularity granularity, LocalDate from, LocalDate to);
+}
@@ -0,0 +1,208 @@
+package com.lambdaschool.apollo.services;
+
+import com.lambdaschool.apollo.exceptions.ResourceNotFoundException;
+import com.lambdaschool.apollo.models.Question;
+import com.lambdaschool.apollo.models.Survey;
+import com.lambdaschool.apollo.models.Topic;
+import com.lambdaschool.apollo.models.TopicRollup;
+import com.lambdaschool.apollo.repository.AnswerRepository;
+import com.lambdaschool.apollo.repository.TopicRepository;
+import com.lambdaschool.apollo.repository.TopicRollupRepository;
+import com.lambdaschool.apollo.views.AnswerRow;
+import com.lambdaschool.apollo.views.QuestionBody;
+import com.lambdaschool.apollo.views.QuestionTrend;
+import com.lambdaschool.apollo.views.QuestionType;
+import com.lambdaschool.apollo.views.RollupGranularity;
+import com.lambdaschool.apollo.views.TopicRollupRow;
+import com.lambdaschool.apollo.views.TopicTrends;
+import com.lambdaschool.apollo.views.TrendPoint;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+@Transactional
+@Service(value = "topicRollupService")
+public class TopicRollupServiceImpl implements TopicRollupService {
+
+    @Autowired
+    private TopicRollupRepository rollupRepository;
+
+    @Autowired
+    private TopicRepository topicRepository;
+
+    @Autowired
+    private AnswerRepository answerRepository;
+
+    /**
+     * The time zone that decides which day a survey request was sent on
+     */
+    @Value("${apollo.rollups.time-zone:UTC}")
+    private String timeZone;
+
+    @Transactional
+    @Override
+    public void record(List<QuestionBody> answers, Map<Long, Question> questions) {
+        Map<Long, Map<Key, AnswerDelta>> byTopic = new TreeMap<>();
+        for (QuestionBody qb : answers) {
+            Question question = questions.get(qb.getQuestionid());
+            if (question == null || !AnswerDelta.isAggregated(question.getType())) {
+                continue;
+            }
+            Survey survey = question.getSurvey();
+            if (survey == null || survey.getTopic() == null) {
+                continue;
+            }
+            Key key = new Key(RollupGranularity.DAY, day(survey.getCreatedDate()), question.getBody(), question.getType());
+            byTopic.computeIfAbsent(survey.getTopic().getTopicId(), id -> new HashMap<>())
+                    .computeIfAbsent(key, k -> new AnswerDelta(question.getType()))
+                    .add(qb.getBody());
+        }
+
+        // topics in id order, so two transactions cannot lock them the other way round
+        for (Map.Entry<Long, Map<Key, AnswerDelta>> entry : byTopic.entrySet()) {
+            Topic topic = topicRepository.lockByTopicId(entry.getKey());
+            if (topic != null) {
+                apply(topic, entry.getValue());
+            }
+        }
+    }
+
+    @Transactional
+    @Override
+    public void rebuild(long topicid) {
+        Topic topic = topicRepository.lockByTopicId(topicid);
+        if (topic == null) {
+            throw new ResourceNotFoundException("Topic " + topicid + " Not Found");
+        }
+        rollupRepository.deleteByTopicId(topicid);
+
+        Map<Key, AnswerDelta> days = new HashMap<>();
+        try (Stream<AnswerRow> rows = answerRepository.streamByTopicId(topicid)) {
+            rows.forEach(row -> {
+                if (AnswerDelta.isAggregated(row.getType())) {
+                    Key key = new Key(RollupGranularity.DAY, day(row.getRequestdate()), row.getQuestion(), row.getType());
+                    days.computeIfAbsent(key, k -> new AnswerDelta(row.getType())).add(row.getAnswer());
+                }
+            });
+        }
+        apply(topic, days);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public TopicTrends findTrends(long topicid, RollupGranularity granularity, LocalDate from, LocalDate to) {
+        Map<String, QuestionTrend> questions = new LinkedHashMap<>();
+        for (TopicRollupRow row : rollupRepository.findRows(topicid, granularity, from, to)) {
+            questions.computeIfAbsent(row.getType() + ":" + row.getQuestionbody(),
+                    k -> new QuestionTrend(row.getQuestionbody(), row.getType()))
+                    .getPoints().add(new TrendPoint(row));
+        }
+
+        TopicTrends trends = new TopicTrends(topicid, granularity, from, to);
+        trends.setQuestions(new ArrayList<>(questions.values()));
+        return trends;
+    }
+
+    /**
+     * Adds the per day deltas of a locked topic to its rollups of every granularity, creating those that
+     * do not exist yet. One query reads what is stored, the changes are written when the transaction is flushed.
+     */
+    private void apply(Topic topic, Map<Key, AnswerDelta> days) {
+        Map<Key, AnswerDelta> periods = new HashMap<>();
+        for (Map.Entry<Key, AnswerDelta> day : days.entrySet()) {
+            for (RollupGranularity granularity : RollupGranularity.values()) {
+                Key key = day.getKey().in(granularity);
+                periods.computeIfAbsent(key, k -> new AnswerDelta(k.type)).merge(day.getValue());
+            }
+        }
+        if (periods.isEmpty()) {
+            return;
+        }
+
+        Set<LocalDate> starts = new HashSet<>();
+        for (Key key : periods.keySet()) {
+            starts.add(key.periodstart);
+        }
+        Map<Key, TopicRollup> stored = new HashMap<>();
+        for (TopicRollup rollup : rollupRepository.findByTopicIdAndPeriodstarts(topic.getTopicId(), starts)) {
+            stored.put(new Key(rollup.getGranularity(), rollup.getPeriodstart(), rollup.getQuestionbody(), rollup.getType()), rollup);
+        }
+
+        for (Map.Entry<Key, AnswerDelta> entry : periods.entrySet()) {
+            Key key = entry.getKey();
+            AnswerDelta delta = entry.getValue();
+            TopicRollup rollup = stored.get(key);
+            if (rollup == null) {
+                rollup = rollupRepository.save(new TopicRollup(topic, key.granularity, key.periodstart, key.body, key.type));
+            }
+            rollup.setAnswercount(rollup.getAnswercount() + delta.count);
+            rollup.setValuecount(rollup.getValuecount() + delta.valuecount);
+            rollup.setTotal(rollup.getTotal() + delta.total);
+            rollup.setMinimum(AnswerDelta.min(rollup.getMinimum(), delta.min));
+            rollup.setMaximum(AnswerDelta.max(rollup.getMaximum(), delta.max));
+        }
+    }
+
+    private LocalDate day(Date date) {
+        // answers to a request that has not been flushed yet belong to today
+        Date sent = date == null ? new Date() : date;
+        return sent.toInstant().atZone(ZoneId.of(timeZone)).toLocalDate();
+    }
+
+    /**
+     * A rollup row: one question of a topic over one period
+     */
+    private static final class Key {
+        private final RollupGranularity granularity;
+        private final LocalDate periodstart;
+        private final String body;
+        private final QuestionType type;
+
+        Key(RollupGranularity granularity, LocalDate periodstart, String body, QuestionType type) {
+            this.granularity = granularity;
+            this.periodstart = periodstart;
+            this.body = body;
+            this.type = type;
+        }
+
+        /**
+         * @return The key of the period of the given granularity this day falls in
+         */
+        Key in(RollupGranularity granularity) {
+            return new Key(granularity, granularity.periodStart(periodstart), body, type);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return granularity == key.granularity && periodstart.equals(key.periodstart)
+                    && Objects.equals(body, key.body) && type == key.type;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(granularity, periodstart, body, type);
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.lambdaschool.apollo.services;
 
 import com.lambdaschool.apollo.models.Topic;
 import com.lambdaschool.apollo.models.User;
+import com.lambdaschool.apollo.views.KeysetPage;
+import com.lambdaschool.apollo.views.TopicSummary;
 
 import java.util.List;
 
@@ -11,10 +13,14 @@ public interface TopicService {
 
     List<Topic> findAllTopics();
 
+    KeysetPage<Topic> findTopicsPage(long after, Integer size, String title);
+
     Topic findByJoinCode(String joincode);
 
     List<Topic> findTopicsByUser(String username);
 
+    List<TopicSummary> findTopicSummariesByUser(User user, int requests);
+
     void delete(long id, User user);
 
     Topic save(Topic topic);
@@ -25,4 +31,14 @@ public interface TopicService {
 
     void addTopicUser(long topicId, long userId);
 
+    Topic joinTopic(String joincode, long userId);
+
+    /**
+     * Gives topics that have a frequency but no next request date one, such as topics saved before the scheduler
+     *
+     * @param limit How many topics to schedule at most
+     * @return How many topics were scheduled, less than the limit once all are
+     */
+    int scheduleUnscheduledTopics(int limit);
+
 }
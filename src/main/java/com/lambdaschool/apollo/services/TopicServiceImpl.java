@@ -2,15 +2,32 @@ package com.lambdaschool.apollo.services;
 
 import com.lambdaschool.apollo.exceptions.ResourceFoundException;
 import com.lambdaschool.apollo.exceptions.ResourceNotFoundException;
-import com.lambdaschool.apollo.handlers.HelperFunctions;
 import com.lambdaschool.apollo.models.*;
 import com.lambdaschool.apollo.repository.TopicRepository;
+import com.lambdaschool.apollo.views.DueTopic;
+import com.lambdaschool.apollo.views.KeysetPage;
+import com.lambdaschool.apollo.views.SurveyRequestRow;
+import com.lambdaschool.apollo.views.SurveyRequestSummary;
+import com.lambdaschool.apollo.views.TopicMemberCount;
+import com.lambdaschool.apollo.views.TopicSummary;
+import com.lambdaschool.apollo.views.TopicSummaryRow;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Transactional
 @Service(value = "topicService")
@@ -29,8 +46,28 @@ public class TopicServiceImpl implements TopicService {
     private UserAuditing userAuditing;
 
     @Autowired
-    private HelperFunctions helperFunctions;
+    private JoinCodeIndex joinCodeIndex;
 
+    @Autowired
+    private JoinCodeGenerator joinCodeGenerator;
+
+    @Autowired
+    private RequestSchedule requestSchedule;
+
+    @Autowired
+    private QuestionTemplateService questionTemplateService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private static final String INSERT_TOPIC_USER = "INSERT INTO topicusers(topicid, userid, " +
+            "created_by, created_date, last_modified_by, last_modified_date) " +
+            "VALUES (?, ?, ?, CURRENT_TIMESTAMP, ?, CURRENT_TIMESTAMP)";
+
+    private static final String SCHEDULE_TOPIC = "UPDATE topics SET nextrequestdate = ? " +
+            "WHERE topicid = ? AND nextrequestdate IS NULL";
+
+    @Transactional(readOnly = true)
     @Override
     public Topic findTopicById(long id) {
         return topicRepository.findById(id)
@@ -46,11 +83,15 @@ public class TopicServiceImpl implements TopicService {
         // delete topic if current user is the owner of the topic
         if (user.getUserid() == topic.getOwner().getUserid()) {
             topicRepository.delete(topic);
+            if (topic.getJoincode() != null) {
+                joinCodeIndex.remove(topic.getJoincode());
+            }
         } else {
             throw new ResourceNotFoundException("Not authorized to perform this action");
         }
     }
 
+    @Transactional(readOnly = true)
     @Override
     public List<Topic> findAllTopics() {
         List<Topic> topics = new ArrayList<>();
@@ -58,6 +99,20 @@ public class TopicServiceImpl implements TopicService {
         return topics;
     }
 
+    @Transactional(readOnly = true)
+    @Override
+    public KeysetPage<Topic> findTopicsPage(long after, Integer size, String title) {
+        Pageable limit = KeysetPage.limit(size);
+        List<Topic> topics;
+        if (title == null || title.isEmpty()) {
+            topics = topicRepository.findByTopicIdGreaterThanOrderByTopicIdAsc(after, limit);
+        } else {
+            topics = topicRepository.findByTopicIdGreaterThanAndTitleContainingIgnoreCaseOrderByTopicIdAsc(after, title, limit);
+        }
+        return KeysetPage.of(topics, limit.getPageSize(), Topic::getTopicId);
+    }
+
+    @Transactional(readOnly = true)
     @Override
     public List<Topic> findTopicsByUser(String username) {
         List<Topic> topics = new ArrayList<>();
@@ -68,42 +123,56 @@ public class TopicServiceImpl implements TopicService {
         return topics;
     }
 
+    @Transactional(readOnly = true)
     @Override
-    public Topic findByJoinCode(String joincode) {
-        return topicRepository.findByJoincodeEquals(joincode);
+    public List<TopicSummary> findTopicSummariesByUser(User user, int requests) {
+        // three queries no matter how many topics, members or requests there are
+        Map<Long, TopicSummary> summaries = new LinkedHashMap<>();
+        for (TopicSummaryRow row : topicRepository.findTopicSummaryRows(user.getUserid())) {
+            summaries.put(row.getTopicid(), new TopicSummary(row));
+        }
+        if (summaries.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        for (TopicMemberCount mc : topicRepository.countMembers(summaries.keySet())) {
+            summaries.get(mc.getTopicid()).setMembercount(mc.getCount());
+        }
 
+        for (SurveyRequestRow r : topicRepository.findLatestRequests(summaries.keySet(), user.getUserid(), requests)) {
+            summaries.get(r.getTopicid()).getSurveysrequests()
+                    .add(new SurveyRequestSummary(r.getSurveyid(), r.getCreateddate(), r.getResponded()));
+        }
+        return new ArrayList<>(summaries.values());
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public Topic findByJoinCode(String joincode) {
+        Long topicid = joinCodeIndex.find(joincode);
+        if (topicid == null) {
+            throw new ResourceNotFoundException("Topic with join code " + joincode + " Not Found");
+        }
+        return findTopicById(topicid);
     }
 
     @Transactional
     @Override
     public Topic save(Topic topic) {
 
-        Topic newTopic = new Topic();
         if (topic.getTopicId() != 0) {
             Topic oldTopic = topicRepository.findById(topic.getTopicId())
                     .orElseThrow(() -> new ResourceNotFoundException("Topic " + topic.getTopicId() + " Not Found"));
-
-            // delete the users for the old topic we are replacing
-            for (TopicUsers tu : oldTopic.getUsers()) {
-                deleteTopicUser(tu.getTopic().getTopicId(), tu.getUser().getUserid());
-            }
-            // use existing joincode when updating existing topic
-            newTopic.setJoincode(oldTopic.getJoincode());
-            newTopic.setTopicId(oldTopic.getTopicId());
-        } else {
-            // generate new joincode when creating new topic
-            newTopic.setJoincode(helperFunctions.getNewJoinCode());
-        }
-        newTopic.setTitle(topic.getTitle());
-
-        User owner = userService.findByName(topic.getOwner().getUsername());
-        if (owner != null) {
-            newTopic.setOwner(owner);
-        } else {
-            throw new ResourceNotFoundException("User " + topic.getOwner().getUsername() + " Not Found");
+            return saveExisting(oldTopic, topic);
         }
 
+        Topic newTopic = new Topic();
+        // generate new joincode when creating new topic
+        newTopic.setJoincode(joinCodeGenerator.next());
+        newTopic.setTitle(topic.getTitle());
+        newTopic.setOwner(findOwner(topic));
         newTopic.setFrequency(topic.getFrequency());
+        newTopic.setNextrequestdate(requestSchedule.nextDue(topic.getFrequency(), new Date()));
 
         // If updating topic go find the default survey and attach it.
         if (topic.getDefaultsurvey().getSurveyid() != 0) {
@@ -111,27 +180,99 @@ public class TopicServiceImpl implements TopicService {
             newTopic.setDefaultsurvey(defaultSurvey);
         // If new topic, create a new survey and add questions to it.
         } else {
-            newTopic.setDefaultsurvey(new Survey());
-            for (Question sq : topic.getDefaultsurvey().getQuestions()) {
-                newTopic.getDefaultsurvey().addQuestion(new Question(sq.getBody(), sq.isLeader(),sq.getType(),newTopic.getDefaultsurvey()));
-            }
+            newTopic.setDefaultsurvey(newDefaultSurvey(topic.getDefaultsurvey().getQuestions()));
         }
 
+        for (TopicUsers tu : topic.getUsers()) {
+            newTopic.getUsers().add(new TopicUsers(newTopic, tu.getUser()));
+        }
 
-        newTopic.getUsers().clear();
+        newTopic = topicRepository.save(newTopic);
+        joinCodeIndex.put(newTopic.getJoincode(), newTopic.getTopicId());
+        return newTopic;
+    }
 
-        for (Survey survey :topic.getSurveysrequests()) {
-            Survey surveyReq = surveyService.findById(survey.getSurveyid());
-            if (surveyReq != null) {
-                newTopic.getSurveysrequests().add(surveyReq);
+    /**
+     * Updates the managed topic in place. Only the members that were added or removed are written,
+     * each group as one batched statement. Survey requests are left as they are, they are sent by the scheduler.
+     */
+    private Topic saveExisting(Topic oldTopic, Topic topic) {
+        long topicId = oldTopic.getTopicId();
+
+        oldTopic.setTitle(topic.getTitle());
+        oldTopic.setOwner(findOwner(topic));
+        if (oldTopic.getFrequency() != topic.getFrequency()) {
+            // an unchanged frequency keeps the request that is already due
+            oldTopic.setNextrequestdate(requestSchedule.nextDue(topic.getFrequency(), new Date()));
+        }
+        oldTopic.setFrequency(topic.getFrequency());
+        Survey defaultSurvey = topic.getDefaultsurvey();
+        if (defaultSurvey != null) {
+            if (defaultSurvey.getSurveyid() == 0) {
+                // a default survey without an id is a new one, made from the posted questions
+                oldTopic.setDefaultsurvey(newDefaultSurvey(defaultSurvey.getQuestions()));
+            } else if (oldTopic.getDefaultsurvey() == null
+                    || defaultSurvey.getSurveyid() != oldTopic.getDefaultsurvey().getSurveyid()) {
+                oldTopic.setDefaultsurvey(surveyService.findById(defaultSurvey.getSurveyid()));
             }
         }
 
+        Set<Long> wanted = new LinkedHashSet<>();
         for (TopicUsers tu : topic.getUsers()) {
-            newTopic.getUsers().add(new TopicUsers(newTopic, tu.getUser()));
+            wanted.add(tu.getUser().getUserid());
         }
+        Set<Long> current = new HashSet<>(topicRepository.findMemberUserIds(topicId));
 
-        return topicRepository.save(newTopic);
+        List<Long> removed = new ArrayList<>();
+        for (Long userid : current) {
+            if (!wanted.contains(userid)) {
+                removed.add(userid);
+            }
+        }
+        if (!removed.isEmpty()) {
+            topicRepository.deleteTopicUsers(topicId, removed);
+        }
+
+        String uname = userAuditing.getCurrentAuditor().get();
+        List<Object[]> added = new ArrayList<>();
+        for (Long userid : wanted) {
+            if (!current.contains(userid)) {
+                added.add(new Object[]{topicId, userid, uname, uname});
+            }
+        }
+        if (!added.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_TOPIC_USER, added);
+        }
+
+        return oldTopic;
+    }
+
+    /**
+     * @return A new default survey with the given questions, their text shared through question templates
+     */
+    private Survey newDefaultSurvey(List<Question> questions) {
+        Survey survey = new Survey();
+        List<QuestionTemplate> templates = questionTemplateService.intern(templates(questions));
+        for (int i = 0; i < questions.size(); i++) {
+            survey.addQuestion(new Question(templates.get(i), questions.get(i).isLeader(), survey));
+        }
+        return survey;
+    }
+
+    private static List<QuestionTemplate> templates(List<Question> questions) {
+        List<QuestionTemplate> contents = new ArrayList<>();
+        for (Question q : questions) {
+            contents.add(new QuestionTemplate(q.getBody(), q.getType()));
+        }
+        return contents;
+    }
+
+    private User findOwner(Topic topic) {
+        User owner = userService.findByName(topic.getOwner().getUsername());
+        if (owner == null) {
+            throw new ResourceNotFoundException("User " + topic.getOwner().getUsername() + " Not Found");
+        }
+        return owner;
     }
 
     @Override
@@ -169,4 +310,45 @@ public class TopicServiceImpl implements TopicService {
             throw new ResourceFoundException("Topic and User Combination Already Exists");
         }
     }
+
+    @Transactional
+    @Override
+    public Topic joinTopic(String joincode, long userId) {
+        Long topicId = joinCodeIndex.find(joincode);
+        if (topicId == null) {
+            throw new ResourceNotFoundException("Topic with join code " + joincode + " Not Found");
+        }
+
+        int added;
+        try {
+            added = topicRepository.insertTopicUsersIfAbsent(userAuditing.getCurrentAuditor().get(), topicId, userId);
+        } catch (DataIntegrityViolationException e) {
+            // a concurrent join by the same user won the race on the (topicid, userid) constraint
+            throw new ResourceFoundException("Topic and User Combination Already Exists");
+        }
+
+        if (added == 0) {
+            // only look closer when nothing was inserted
+            if (topicRepository.checkTopicUsersCombo(topicId, userId).getCount() > 0) {
+                throw new ResourceFoundException("Topic and User Combination Already Exists");
+            }
+            joinCodeIndex.remove(joincode);
+            throw new ResourceNotFoundException("Topic " + topicId + " Not Found");
+        }
+        return findTopicById(topicId);
+    }
+
+    @Transactional
+    @Override
+    public int scheduleUnscheduledTopics(int limit) {
+        Date now = new Date();
+        List<Object[]> rows = new ArrayList<>();
+        for (DueTopic topic : topicRepository.findUnscheduledTopics(PageRequest.of(0, limit))) {
+            rows.add(new Object[]{new Timestamp(requestSchedule.nextDue(topic.getFrequency(), now).getTime()), topic.getTopicid()});
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(SCHEDULE_TOPIC, rows);
+        }
+        return rows.size();
+    }
 }
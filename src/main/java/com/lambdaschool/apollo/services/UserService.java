@@ -1,6 +1,7 @@
 package com.lambdaschool.apollo.services;
 
 import com.lambdaschool.apollo.models.User;
+import com.lambdaschool.apollo.views.KeysetPage;
 
 import java.util.List;
 
@@ -19,6 +20,16 @@ public interface UserService {
      */
     List<User> findAll();
 
+    /**
+     * Returns one page of Users ordered by user id. Use this instead of findAll on large tables.
+     *
+     * @param after The user id of the last user of the previous page, 0 for the first page
+     * @param size  The number of users per page, capped at KeysetPage.MAX_SIZE. Null for the default size
+     * @param name  Optional substring (String) of the username of the Users you seek. Null for all users
+     * @return The page of users and the cursor for the next page
+     */
+    KeysetPage<User> findPage(long after, Integer size, String name);
+
     /**
      * A list of all users whose username contains the given substring
      *
@@ -43,8 +54,23 @@ public interface UserService {
      */
     User findByName(String name);
 
+    /**
+     * Returns the user for the given Okta user name, creating the user on first sight
+     *
+     * @param name The Okta user name of the authenticated principal
+     * @return The managed User for the principal
+     */
     User findByOKTAUserName(String name);
 
+    /**
+     * Same as findByOKTAUserName but served from the principal cache. The returned user is detached
+     * so it is meant for ids, names and ownership checks, not for walking the user's collections.
+     *
+     * @param name The Okta user name of the authenticated principal
+     * @return The cached User for the principal
+     */
+    User findPrincipal(String name);
+
     /**
      * Deletes the user record, its role and user combinations, and its useremail items from the database based off of the provided primary key
      *
@@ -7,7 +7,9 @@ import com.lambdaschool.apollo.models.Role;
 import com.lambdaschool.apollo.models.User;
 import com.lambdaschool.apollo.models.UserRoles;
 import com.lambdaschool.apollo.repository.UserRepository;
+import com.lambdaschool.apollo.views.KeysetPage;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -45,6 +47,12 @@ public class UserServiceImpl
     @Autowired
     private HelperFunctions helper;
 
+    /**
+     * Caches the user behind each authenticated principal
+     */
+    @Autowired
+    private PrincipalCache principalCache;
+
     public User findUserById(long id)
             throws
             ResourceNotFoundException {
@@ -70,12 +78,25 @@ public class UserServiceImpl
         return list;
     }
 
+    @Override
+    public KeysetPage<User> findPage(long after, Integer size, String name) {
+        Pageable limit = KeysetPage.limit(size);
+        List<User> list;
+        if (name == null || name.isEmpty()) {
+            list = userrepos.findByUseridGreaterThanOrderByUseridAsc(after, limit);
+        } else {
+            list = userrepos.findByUseridGreaterThanAndUsernameContainingIgnoreCaseOrderByUseridAsc(after, name.toLowerCase(), limit);
+        }
+        return KeysetPage.of(list, limit.getPageSize(), User::getUserid);
+    }
+
     @Transactional
     @Override
     public void delete(long id) {
         userrepos.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("User id " + id + " not found!"));
         userrepos.deleteById(id);
+        principalCache.evict(id);
     }
 
     @Override
@@ -89,12 +110,23 @@ public class UserServiceImpl
 
     @Override
     public User findByOKTAUserName(String name) {
-        User existing = userrepos.findByUsername(name.toLowerCase());
-        if (existing == null) {
-            User newUser = new User(name, name);
-            return userrepos.save(newUser);
+        return findUserById(findPrincipal(name).getUserid());
+    }
+
+    @Override
+    public User findPrincipal(String name) {
+        User cached = principalCache.get(name);
+        if (cached != null) {
+            return cached;
+        }
+
+        // read on the caller's connection, cached only once that transaction commits
+        User user = userrepos.findByUsername(name.toLowerCase());
+        if (user == null) {
+            user = userrepos.save(new User(name, name));
         }
-        return existing;
+        principalCache.putAfterCommit(name, user);
+        return user;
     }
 
     @Transactional
@@ -140,7 +172,9 @@ public class UserServiceImpl
             }
         }
 
-        return userrepos.save(newUser);
+        User saved = userrepos.save(newUser);
+        principalCache.evict(saved.getUserid());
+        return saved;
     }
 
     @Transactional
@@ -183,6 +217,7 @@ public class UserServiceImpl
                 }
             }
 
+            principalCache.evict(id);
             return userrepos.save(currentUser);
         } else {
             {
@@ -0,0 +1,15 @@
+package com.lambdaschool.apollo.views;
+
+/**
+ * Used when a custom query is to read the histogram buckets of the questions of a survey
+ */
+public interface AggregateBucketRow {
+
+    long getQuestionid();
+
+    String getLabel();
+
+    Double getBucketvalue();
+
+    long getAnswercount();
+}
@@ -0,0 +1,32 @@
+package com.lambdaschool.apollo.views;
+
+import java.util.Date;
+
+/**
+ * Used when a custom query is to stream the flat columns of survey responses for an export,
+ * one row per answer with its survey request, question and user
+ */
+public interface AnswerRow {
+
+    long getSurveyid();
+
+    Date getRequestdate();
+
+    long getQuestionid();
+
+    String getQuestion();
+
+    QuestionType getType();
+
+    boolean getLeader();
+
+    long getUserid();
+
+    String getUsername();
+
+    long getAnswerid();
+
+    String getAnswer();
+
+    Date getAnswereddate();
+}
@@ -0,0 +1,30 @@
+package com.lambdaschool.apollo.views;
+
+public class BucketSummary {
+    private String label;
+    private long count;
+
+    public BucketSummary() {
+    }
+
+    public BucketSummary(String label, long count) {
+        this.label = label;
+        this.count = count;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public void setLabel(String label) {
+        this.label = label;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+}
@@ -0,0 +1,15 @@
+package com.lambdaschool.apollo.views;
+
+import java.util.Date;
+
+/**
+ * Used when a custom query is to read just what the scheduler needs to send a topic's next survey request
+ */
+public interface DueTopic {
+
+    long getTopicid();
+
+    TopicFrequency getFrequency();
+
+    Date getNextrequestdate();
+}
@@ -0,0 +1,41 @@
+package com.lambdaschool.apollo.views;
+
+import com.lambdaschool.apollo.exceptions.ResourceFoundException;
+
+/**
+ * The formats survey responses can be exported in
+ */
+public enum ExportFormat {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * @param format The format as given in a request parameter, in any case
+     * @return The matching format
+     */
+    public static ExportFormat of(String format) {
+        for (ExportFormat f : values()) {
+            if (f.name().equalsIgnoreCase(format)) {
+                return f;
+            }
+        }
+        // a bad request parameter, not a missing resource
+        throw new ResourceFoundException("Export format " + format + " is not one of ndjson, csv");
+    }
+}
@@ -0,0 +1,11 @@
+package com.lambdaschool.apollo.views;
+
+/**
+ * Used when a custom query reads the join code of each topic
+ */
+public interface JoinCodeEntry {
+
+    String getJoincode();
+
+    long getTopicid();
+}
@@ -0,0 +1,87 @@
+package com.lambdaschool.apollo.views;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * One page of a keyset (cursor) paginated list. Items are always ordered by their primary key, ascending,
+ * so the id of the last item is the cursor for the next page. Unlike offset paging the cost of a page does
+ * not grow with how deep into the table it is.
+ *
+ * @param <T> The type of the items on the page
+ */
+public class KeysetPage<T> {
+    /**
+     * Page size used when the client does not ask for one
+     */
+    public static final int DEFAULT_SIZE = 50;
+
+    /**
+     * Largest page size a client can ask for
+     */
+    public static final int MAX_SIZE = 500;
+
+    private List<T> items;
+
+    /**
+     * Pass as "after" to get the next page. Null when there are no more items.
+     */
+    private Long nextcursor;
+
+    public KeysetPage() {
+    }
+
+    public KeysetPage(List<T> items, Long nextcursor) {
+        this.items = items;
+        this.nextcursor = nextcursor;
+    }
+
+    /**
+     * Builds a page from the items read for it
+     *
+     * @param items The items read, at most size of them
+     * @param size  The page size the items were read with
+     * @param id    How to get the primary key of an item
+     * @param <T>   The type of the items
+     * @return The page, with a next cursor only if the page is full
+     */
+    public static <T> KeysetPage<T> of(List<T> items, int size, ToLongFunction<T> id) {
+        Long next = null;
+        if (!items.isEmpty() && items.size() >= size) {
+            next = id.applyAsLong(items.get(items.size() - 1));
+        }
+        return new KeysetPage<>(items, next);
+    }
+
+    /**
+     * Turns the page size requested by a client into a limit for the repository, keeping it between 1 and MAX_SIZE
+     *
+     * @param size The requested page size, may be null
+     * @return A pageable for the first "page" of the keyset query, the keyset itself does the skipping
+     */
+    public static Pageable limit(Integer size) {
+        if (size == null) {
+            return PageRequest.of(0, DEFAULT_SIZE);
+        }
+        return PageRequest.of(0, Math.max(1, Math.min(size, MAX_SIZE)));
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+
+    public Long getNextcursor() {
+        return nextcursor;
+    }
+
+    public void setNextcursor(Long nextcursor) {
+        this.nextcursor = nextcursor;
+    }
+}
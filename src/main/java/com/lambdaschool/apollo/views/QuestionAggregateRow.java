@@ -0,0 +1,24 @@
+package com.lambdaschool.apollo.views;
+
+/**
+ * Used when a custom query is to read the questions of a survey along with their aggregates.
+ * The aggregate columns are null for questions nobody has answered yet and for TEXT questions.
+ */
+public interface QuestionAggregateRow {
+
+    long getQuestionid();
+
+    String getBody();
+
+    QuestionType getType();
+
+    Long getAnswercount();
+
+    Long getValuecount();
+
+    Double getTotal();
+
+    Double getMinimum();
+
+    Double getMaximum();
+}
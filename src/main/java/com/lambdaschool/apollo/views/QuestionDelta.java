@@ -0,0 +1,81 @@
+package com.lambdaschool.apollo.views;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * What one submission added to the aggregates of a question, see QuestionSummary for the totals.
+ * Only RATING, BOOL and MULTIPLE questions have aggregates
+ */
+public class QuestionDelta {
+    private long questionid;
+    private long count;
+    private long valuecount;
+    private double sum;
+    private Double min;
+    private Double max;
+    private List<BucketSummary> buckets = new ArrayList<>();
+
+    public QuestionDelta() {
+    }
+
+    public QuestionDelta(long questionid) {
+        this.questionid = questionid;
+    }
+
+    public long getQuestionid() {
+        return questionid;
+    }
+
+    public void setQuestionid(long questionid) {
+        this.questionid = questionid;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public long getValuecount() {
+        return valuecount;
+    }
+
+    public void setValuecount(long valuecount) {
+        this.valuecount = valuecount;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    public void setSum(double sum) {
+        this.sum = sum;
+    }
+
+    public Double getMin() {
+        return min;
+    }
+
+    public void setMin(Double min) {
+        this.min = min;
+    }
+
+    public Double getMax() {
+        return max;
+    }
+
+    public void setMax(Double max) {
+        this.max = max;
+    }
+
+    public List<BucketSummary> getBuckets() {
+        return buckets;
+    }
+
+    public void setBuckets(List<BucketSummary> buckets) {
+        this.buckets = buckets;
+    }
+}
@@ -0,0 +1,111 @@
+package com.lambdaschool.apollo.views;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Aggregated results of one question of a survey. count covers every answer, sum, min, max and mean
+ * the answers with a numeric value. buckets hold the histogram, the true / false counts or the option counts.
+ * TEXT questions have no results.
+ */
+public class QuestionSummary {
+    private long questionid;
+    private String body;
+    private QuestionType type;
+    private long count;
+    private double sum;
+    private Double min;
+    private Double max;
+    private Double mean;
+    private List<BucketSummary> buckets = new ArrayList<>();
+
+    public QuestionSummary() {
+    }
+
+    public QuestionSummary(QuestionAggregateRow row) {
+        this.questionid = row.getQuestionid();
+        this.body = row.getBody();
+        this.type = row.getType();
+        if (row.getAnswercount() != null) {
+            this.count = row.getAnswercount();
+            this.sum = row.getTotal();
+            this.min = row.getMinimum();
+            this.max = row.getMaximum();
+            if (row.getValuecount() > 0) {
+                this.mean = row.getTotal() / row.getValuecount();
+            }
+        }
+    }
+
+    public long getQuestionid() {
+        return questionid;
+    }
+
+    public void setQuestionid(long questionid) {
+        this.questionid = questionid;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public void setBody(String body) {
+        this.body = body;
+    }
+
+    public QuestionType getType() {
+        return type;
+    }
+
+    public void setType(QuestionType type) {
+        this.type = type;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    public void setSum(double sum) {
+        this.sum = sum;
+    }
+
+    public Double getMin() {
+        return min;
+    }
+
+    public void setMin(Double min) {
+        this.min = min;
+    }
+
+    public Double getMax() {
+        return max;
+    }
+
+    public void setMax(Double max) {
+        this.max = max;
+    }
+
+    public Double getMean() {
+        return mean;
+    }
+
+    public void setMean(Double mean) {
+        this.mean = mean;
+    }
+
+    public List<BucketSummary> getBuckets() {
+        return buckets;
+    }
+
+    public void setBuckets(List<BucketSummary> buckets) {
+        this.buckets = buckets;
+    }
+}
@@ -0,0 +1,45 @@
+package com.lambdaschool.apollo.views;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The results of one question of a topic over time, oldest period first
+ */
+public class QuestionTrend {
+    private String body;
+    private QuestionType type;
+    private List<TrendPoint> points = new ArrayList<>();
+
+    public QuestionTrend() {
+    }
+
+    public QuestionTrend(String body, QuestionType type) {
+        this.body = body;
+        this.type = type;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public void setBody(String body) {
+        this.body = body;
+    }
+
+    public QuestionType getType() {
+        return type;
+    }
+
+    public void setType(QuestionType type) {
+        this.type = type;
+    }
+
+    public List<TrendPoint> getPoints() {
+        return points;
+    }
+
+    public void setPoints(List<TrendPoint> points) {
+        this.points = points;
+    }
+}
@@ -0,0 +1,60 @@
+package com.lambdaschool.apollo.views;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pushed to the leaders watching a survey request once a submission to it is committed, see ResponseEventHub.
+ * The counts are what the submission added, so a client keeps its own totals after reading the summary once.
+ */
+public class ResponseEvent {
+    private long surveyid;
+
+    /**
+     * 1 when the submission came from a member who had not answered the request before, otherwise 0
+     */
+    private int responses;
+
+    private int answers;
+
+    private List<QuestionDelta> questions = new ArrayList<>();
+
+    public ResponseEvent() {
+    }
+
+    public ResponseEvent(long surveyid) {
+        this.surveyid = surveyid;
+    }
+
+    public long getSurveyid() {
+        return surveyid;
+    }
+
+    public void setSurveyid(long surveyid) {
+        this.surveyid = surveyid;
+    }
+
+    public int getResponses() {
+        return responses;
+    }
+
+    public void setResponses(int responses) {
+        this.responses = responses;
+    }
+
+    public int getAnswers() {
+        return answers;
+    }
+
+    public void setAnswers(int answers) {
+        this.answers = answers;
+    }
+
+    public List<QuestionDelta> getQuestions() {
+        return questions;
+    }
+
+    public void setQuestions(List<QuestionDelta> questions) {
+        this.questions = questions;
+    }
+}
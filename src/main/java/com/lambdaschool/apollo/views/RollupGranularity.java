@@ -0,0 +1,42 @@
+package com.lambdaschool.apollo.views;
+
+import com.lambdaschool.apollo.exceptions.ResourceNotFoundException;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * The periods topic rollups are kept for. Weeks start on Monday.
+ */
+public enum RollupGranularity {
+    DAY, WEEK, MONTH;
+
+    /**
+     * @param day A day
+     * @return The first day of the period the day falls in
+     */
+    public LocalDate periodStart(LocalDate day) {
+        switch (this) {
+            case WEEK:
+                return day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH:
+                return day.withDayOfMonth(1);
+            default:
+                return day;
+        }
+    }
+
+    /**
+     * @param granularity The granularity as given in a request parameter, in any case
+     * @return The matching granularity
+     */
+    public static RollupGranularity of(String granularity) {
+        for (RollupGranularity g : values()) {
+            if (g.name().equalsIgnoreCase(granularity)) {
+                return g;
+            }
+        }
+        throw new ResourceNotFoundException("Granularity " + granularity + " Not Found");
+    }
+}
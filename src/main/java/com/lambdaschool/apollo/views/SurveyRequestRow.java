@@ -0,0 +1,18 @@
+package com.lambdaschool.apollo.views;
+
+import java.util.Date;
+
+/**
+ * Used when a custom query is to read the latest survey requests of a topic along with
+ * whether the current user has responded to them
+ */
+public interface SurveyRequestRow {
+
+    long getSurveyid();
+
+    long getTopicid();
+
+    Date getCreateddate();
+
+    boolean getResponded();
+}
@@ -0,0 +1,51 @@
+package com.lambdaschool.apollo.views;
+
+import java.util.Date;
+
+public class SurveyRequestSummary {
+    private long surveyid;
+    private Date createddate;
+    private boolean responded;
+
+    public SurveyRequestSummary() {
+    }
+
+    public SurveyRequestSummary(long surveyid, Date createddate, boolean responded) {
+        this.surveyid = surveyid;
+        this.createddate = createddate;
+        this.responded = responded;
+    }
+
+    public long getSurveyid() {
+        return surveyid;
+    }
+
+    public void setSurveyid(long surveyid) {
+        this.surveyid = surveyid;
+    }
+
+    public Date getCreateddate() {
+        return createddate;
+    }
+
+    public void setCreateddate(Date createddate) {
+        this.createddate = createddate;
+    }
+
+    public boolean isResponded() {
+        return responded;
+    }
+
+    public void setResponded(boolean responded) {
+        this.responded = responded;
+    }
+
+    @Override
+    public String toString() {
+        return "SurveyRequestSummary{" +
+                "surveyid=" + surveyid +
+                ", createddate=" + createddate +
+                ", responded=" + responded +
+                '}';
+    }
+}
@@ -0,0 +1,35 @@
+package com.lambdaschool.apollo.views;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Aggregated results of a survey, read from the precomputed question aggregates rather than the answers
+ */
+public class SurveySummary {
+    private long surveyid;
+    private List<QuestionSummary> questions = new ArrayList<>();
+
+    public SurveySummary() {
+    }
+
+    public SurveySummary(long surveyid) {
+        this.surveyid = surveyid;
+    }
+
+    public long getSurveyid() {
+        return surveyid;
+    }
+
+    public void setSurveyid(long surveyid) {
+        this.surveyid = surveyid;
+    }
+
+    public List<QuestionSummary> getQuestions() {
+        return questions;
+    }
+
+    public void setQuestions(List<QuestionSummary> questions) {
+        this.questions = questions;
+    }
+}
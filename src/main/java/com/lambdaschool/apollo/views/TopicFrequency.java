@@ -1,5 +1,33 @@
 package com.lambdaschool.apollo.views;
 
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+
 public enum TopicFrequency {
     DAILY, WEEKLY, MONTHLY, MONDAY, TUESDAY, WEDNESDAY, THURSDAY, FRIDAY;
+
+    /**
+     * The first time a survey request is due after the given time. Requests go out at the given time of day:
+     * every day, every Monday for WEEKLY, on the first of the month for MONTHLY, or on the named weekday.
+     *
+     * @param after The time to start from, exclusive
+     * @param at    The time of day requests go out
+     * @return The next due time, always after the given time
+     */
+    public LocalDateTime nextDue(LocalDateTime after, LocalTime at) {
+        LocalDateTime due = after.toLocalDate().atTime(at);
+        switch (this) {
+            case DAILY:
+                return due.isAfter(after) ? due : due.plusDays(1);
+            case MONTHLY:
+                due = due.withDayOfMonth(1);
+                return due.isAfter(after) ? due : due.plusMonths(1);
+            default:
+                DayOfWeek weekday = this == WEEKLY ? DayOfWeek.MONDAY : DayOfWeek.valueOf(name());
+                due = due.with(TemporalAdjusters.nextOrSame(weekday));
+                return due.isAfter(after) ? due : due.plusWeeks(1);
+        }
+    }
 }
@@ -0,0 +1,16 @@
+package com.lambdaschool.apollo.views;
+
+/**
+ * Used when a custom query is to count how many members each topic has
+ */
+public interface TopicMemberCount {
+
+    long getTopicid();
+
+    /**
+     * The result of the count
+     *
+     * @return the count (long)
+     */
+    long getCount();
+}
@@ -0,0 +1,25 @@
+package com.lambdaschool.apollo.views;
+
+import java.time.LocalDate;
+
+/**
+ * Used when a custom query is to read the rollups of a topic for a trend chart
+ */
+public interface TopicRollupRow {
+
+    LocalDate getPeriodstart();
+
+    String getQuestionbody();
+
+    QuestionType getType();
+
+    long getAnswercount();
+
+    long getValuecount();
+
+    double getTotal();
+
+    Double getMinimum();
+
+    Double getMaximum();
+}
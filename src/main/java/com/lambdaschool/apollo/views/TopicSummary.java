@@ -0,0 +1,114 @@
+package com.lambdaschool.apollo.views;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Flat read model of a topic as shown on a user's dashboard. Unlike the Topic entity it carries
+ * no lazy associations, so serializing it never goes back to the database.
+ */
+public class TopicSummary {
+    private long topicid;
+    private String title;
+    private TopicFrequency frequency;
+    private String joincode;
+    private long ownerid;
+    private String ownername;
+    private Long defaultsurveyid;
+    private long membercount;
+    private List<SurveyRequestSummary> surveysrequests = new ArrayList<>();
+
+    public TopicSummary() {
+    }
+
+    public TopicSummary(TopicSummaryRow row) {
+        this.topicid = row.getTopicid();
+        this.title = row.getTitle();
+        this.frequency = row.getFrequency();
+        this.joincode = row.getJoincode();
+        this.ownerid = row.getOwnerid();
+        this.ownername = row.getOwnername();
+        this.defaultsurveyid = row.getDefaultsurveyid();
+    }
+
+    public long getTopicid() {
+        return topicid;
+    }
+
+    public void setTopicid(long topicid) {
+        this.topicid = topicid;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public TopicFrequency getFrequency() {
+        return frequency;
+    }
+
+    public void setFrequency(TopicFrequency frequency) {
+        this.frequency = frequency;
+    }
+
+    public String getJoincode() {
+        return joincode;
+    }
+
+    public void setJoincode(String joincode) {
+        this.joincode = joincode;
+    }
+
+    public long getOwnerid() {
+        return ownerid;
+    }
+
+    public void setOwnerid(long ownerid) {
+        this.ownerid = ownerid;
+    }
+
+    public String getOwnername() {
+        return ownername;
+    }
+
+    public void setOwnername(String ownername) {
+        this.ownername = ownername;
+    }
+
+    public Long getDefaultsurveyid() {
+        return defaultsurveyid;
+    }
+
+    public void setDefaultsurveyid(Long defaultsurveyid) {
+        this.defaultsurveyid = defaultsurveyid;
+    }
+
+    public long getMembercount() {
+        return membercount;
+    }
+
+    public void setMembercount(long membercount) {
+        this.membercount = membercount;
+    }
+
+    public List<SurveyRequestSummary> getSurveysrequests() {
+        return surveysrequests;
+    }
+
+    public void setSurveysrequests(List<SurveyRequestSummary> surveysrequests) {
+        this.surveysrequests = surveysrequests;
+    }
+
+    @Override
+    public String toString() {
+        return "TopicSummary{" +
+                "topicid=" + topicid +
+                ", title='" + title + '\'' +
+                ", membercount=" + membercount +
+                '}';
+    }
+}
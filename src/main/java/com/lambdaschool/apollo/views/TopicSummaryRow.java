@@ -0,0 +1,21 @@
+package com.lambdaschool.apollo.views;
+
+/**
+ * Used when a custom query is to read just the flat topic columns needed for a topic summary
+ */
+public interface TopicSummaryRow {
+
+    long getTopicid();
+
+    String getTitle();
+
+    TopicFrequency getFrequency();
+
+    String getJoincode();
+
+    long getOwnerid();
+
+    String getOwnername();
+
+    Long getDefaultsurveyid();
+}
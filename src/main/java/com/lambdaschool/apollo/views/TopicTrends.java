@@ -0,0 +1,66 @@
+package com.lambdaschool.apollo.views;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Trend charts of a topic, read from the topic rollups rather than the surveys and answers
+ */
+public class TopicTrends {
+    private long topicid;
+    private RollupGranularity granularity;
+    private LocalDate from;
+    private LocalDate to;
+    private List<QuestionTrend> questions = new ArrayList<>();
+
+    public TopicTrends() {
+    }
+
+    public TopicTrends(long topicid, RollupGranularity granularity, LocalDate from, LocalDate to) {
+        this.topicid = topicid;
+        this.granularity = granularity;
+        this.from = from;
+        this.to = to;
+    }
+
+    public long getTopicid() {
+        return topicid;
+    }
+
+    public void setTopicid(long topicid) {
+        this.topicid = topicid;
+    }
+
+    public RollupGranularity getGranularity() {
+        return granularity;
+    }
+
+    public void setGranularity(RollupGranularity granularity) {
+        this.granularity = granularity;
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDate from) {
+        this.from = from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDate to) {
+        this.to = to;
+    }
+
+    public List<QuestionTrend> getQuestions() {
+        return questions;
+    }
+
+    public void setQuestions(List<QuestionTrend> questions) {
+        this.questions = questions;
+    }
+}
@@ -0,0 +1,66 @@
+package com.lambdaschool.apollo.views;
+
+import java.time.LocalDate;
+
+/**
+ * The results of a question over one period. mean, min and max cover the answers with a numeric value
+ * and are null when there are none.
+ */
+public class TrendPoint {
+    private LocalDate periodstart;
+    private long count;
+    private Double mean;
+    private Double min;
+    private Double max;
+
+    public TrendPoint() {
+    }
+
+    public TrendPoint(TopicRollupRow row) {
+        this.periodstart = row.getPeriodstart();
+        this.count = row.getAnswercount();
+        this.mean = row.getValuecount() > 0 ? row.getTotal() / row.getValuecount() : null;
+        this.min = row.getMinimum();
+        this.max = row.getMaximum();
+    }
+
+    public LocalDate getPeriodstart() {
+        return periodstart;
+    }
+
+    public void setPeriodstart(LocalDate periodstart) {
+        this.periodstart = periodstart;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public Double getMean() {
+        return mean;
+    }
+
+    public void setMean(Double mean) {
+        this.mean = mean;
+    }
+
+    public Double getMin() {
+        return min;
+    }
+
+    public void setMin(Double min) {
+        this.min = min;
+    }
+
+    public Double getMax() {
+        return max;
+    }
+
+    public void setMax(Double max) {
+        this.max = max;
+    }
+}
@@ -0,0 +1,92 @@
+package com.lambdaschool.apollo.benchmarks;
+
+import com.lambdaschool.apollo.ApolloApplication;
+import com.lambdaschool.apollo.models.Answer;
+import com.lambdaschool.apollo.models.Question;
+import com.lambdaschool.apollo.models.Survey;
+import com.lambdaschool.apollo.models.Topic;
+import com.lambdaschool.apollo.models.User;
+import com.lambdaschool.apollo.repository.TopicRepository;
+import com.lambdaschool.apollo.repository.UserRepository;
+import com.lambdaschool.apollo.views.QuestionType;
+import com.lambdaschool.apollo.views.TopicFrequency;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Starts the test application against the embedded H2 database and grows the SeedData data set for benchmarking.
+ * <p>
+ * The size is set with the system property apollo.bench.topics (default 100): that many topics owned by admin,
+ * each with apollo.bench.members members and apollo.bench.requests answered survey requests.
+ */
+public class BenchmarkContext {
+    public static final int TOPICS = Integer.getInteger("apollo.bench.topics", 100);
+    public static final int MEMBERS = Integer.getInteger("apollo.bench.members", 10);
+    public static final int REQUESTS = Integer.getInteger("apollo.bench.requests", 10);
+    public static final int QUESTIONS = 3;
+
+    private BenchmarkContext() {
+    }
+
+    /**
+     * @return A running application with the data set loaded. Close it when the benchmark is done
+     */
+    public static ConfigurableApplicationContext start() {
+        ConfigurableApplicationContext ctx = new SpringApplicationBuilder(ApolloApplication.class)
+                .properties("server.port=0",
+                        "h2.tcp.enabled=false",
+                        "h2.web.enabled=false",
+                        "spring.h2.console.enabled=false",
+                        "logging.level.root=WARN")
+                .run();
+        new TransactionTemplate(ctx.getBean(PlatformTransactionManager.class))
+                .executeWithoutResult(status -> seed(ctx));
+        return ctx;
+    }
+
+    private static void seed(ConfigurableApplicationContext ctx) {
+        UserRepository users = ctx.getBean(UserRepository.class);
+        TopicRepository topics = ctx.getBean(TopicRepository.class);
+
+        User owner = users.findByUsername("admin");
+        List<User> members = new ArrayList<>();
+        members.add(users.findByUsername("user1"));
+        for (int m = 1; m < MEMBERS; m++) {
+            members.add(users.save(new User("bench" + m, "bench" + m + "@bench.local")));
+        }
+
+        for (int t = 0; t < TOPICS; t++) {
+            Survey defaultSurvey = new Survey();
+            for (int q = 0; q < QUESTIONS; q++) {
+                defaultSurvey.addQuestion(new Question("Default question " + q, q == 0, QuestionType.TEXT, defaultSurvey));
+            }
+            Topic topic = new Topic("Bench topic " + t, owner, defaultSurvey, TopicFrequency.DAILY);
+            topic.setJoincode("bench" + t);
+            for (User member : members) {
+                topic.addUser(member);
+            }
+            for (int r = 0; r < REQUESTS; r++) {
+                Survey request = new Survey(topic);
+                for (int q = 0; q < QUESTIONS; q++) {
+                    boolean leader = q == 0;
+                    Question question = new Question("Request question " + q, leader, QuestionType.TEXT, request);
+                    if (leader) {
+                        question.getAnswers().add(new Answer("leader answer", question, owner, request));
+                    } else {
+                        for (User member : members) {
+                            question.getAnswers().add(new Answer("member answer", question, member, request));
+                        }
+                    }
+                    request.addQuestion(question);
+                }
+                topic.getSurveysrequests().add(request);
+            }
+            topics.save(topic);
+        }
+    }
+}
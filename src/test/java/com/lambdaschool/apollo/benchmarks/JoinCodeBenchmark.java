@@ -0,0 +1,68 @@
+package com.lambdaschool.apollo.benchmarks;
+
+import com.lambdaschool.apollo.services.JoinCodeGenerator;
+import org.hashids.Hashids;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the join code generator with the implementation it replaced, which built a new Hashids
+ * (salt preprocessing included) and a Timestamp on every call.
+ * <p>
+ * Run with: mvn -P benchmarks test-compile exec:exec -Dbench=JoinCodeBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JoinCodeBenchmark {
+    private static final String SALT = "benchmark salt";
+
+    private JoinCodeGenerator generator;
+
+    @Setup
+    public void setUp() {
+        generator = new JoinCodeGenerator(SALT, 1);
+    }
+
+    @Benchmark
+    public String legacy() {
+        Timestamp timestamp = new Timestamp(System.currentTimeMillis());
+        Hashids hashids = new Hashids(SALT);
+        return hashids.encode(timestamp.getTime());
+    }
+
+    @Benchmark
+    public String generator() {
+        return generator.next();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String generatorContended() {
+        return generator.next();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JoinCodeBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,71 @@
+package com.lambdaschool.apollo.benchmarks;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Endpoints for VirtualThreadLoadTest, only with the LOADTEST profile. /loadtest/slow stands for a request that
+ * spends most of its time waiting on the database: it runs a query that takes queryms milliseconds on PostgreSQL,
+ * so the wait happens inside the JDBC driver, as it does for a slow query. waitms adds a wait outside the driver,
+ * such as a call to the Okta JWKS endpoint.
+ */
+@Profile("LOADTEST")
+@RestController
+@RequestMapping("/loadtest")
+public class LoadTestController {
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @GetMapping("/slow")
+    public Map<String, Object> slow(@RequestParam(defaultValue = "200") long queryms,
+                                    @RequestParam(defaultValue = "0") long waitms) throws InterruptedException {
+        if (waitms > 0) {
+            Thread.sleep(waitms);
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("slept", jdbcTemplate.queryForObject("SELECT pg_sleep(?) IS NULL", Boolean.class, queryms / 1000.0));
+        return body;
+    }
+
+    /**
+     * Starts the measurement after the warmup
+     */
+    @PostMapping("/reset")
+    public void reset() {
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            pool.resetPeakUsage();
+        }
+        ManagementFactory.getThreadMXBean().resetPeakThreadCount();
+    }
+
+    /**
+     * @return Peak heap use and peak platform threads since the last reset. Virtual threads are not counted as threads,
+     * their stacks are on the heap
+     */
+    @GetMapping("/stats")
+    public Map<String, Object> stats() {
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peakHeap += pool.getPeakUsage().getUsed();
+            }
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("peakheapmb", peakHeap / (1024 * 1024));
+        stats.put("peakthreads", ManagementFactory.getThreadMXBean().getPeakThreadCount());
+        return stats;
+    }
+}
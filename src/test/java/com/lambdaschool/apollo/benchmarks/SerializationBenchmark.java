@@ -0,0 +1,78 @@
+package com.lambdaschool.apollo.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lambdaschool.apollo.models.Survey;
+import com.lambdaschool.apollo.models.Topic;
+import com.lambdaschool.apollo.repository.TopicRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of fully loaded Topic and Survey graphs, using the application's ObjectMapper.
+ * The graphs are loaded and serialized once inside a transaction so every lazy collection the JSON walks is initialized.
+ * <p>
+ * Run with: mvn -P benchmarks test-compile exec:exec -Dbench=SerializationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+    private ConfigurableApplicationContext ctx;
+    private ObjectMapper mapper;
+
+    private Topic topic;
+    private Survey survey;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ctx = BenchmarkContext.start();
+        mapper = ctx.getBean(ObjectMapper.class);
+        TopicRepository topics = ctx.getBean(TopicRepository.class);
+        long topicid = topics.findTopicIdByJoincode("bench0");
+
+        new TransactionTemplate(ctx.getBean(PlatformTransactionManager.class)).executeWithoutResult(status -> {
+            topic = topics.findById(topicid).orElseThrow(IllegalStateException::new);
+            survey = topic.getSurveysrequests().get(0);
+            try {
+                mapper.writeValueAsString(topic);
+                mapper.writeValueAsString(survey);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ctx.close();
+    }
+
+    @Benchmark
+    public String topic() throws JsonProcessingException {
+        return mapper.writeValueAsString(topic);
+    }
+
+    @Benchmark
+    public String survey() throws JsonProcessingException {
+        return mapper.writeValueAsString(survey);
+    }
+}
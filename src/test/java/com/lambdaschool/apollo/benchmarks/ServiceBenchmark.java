@@ -0,0 +1,122 @@
+package com.lambdaschool.apollo.benchmarks;
+
+import com.lambdaschool.apollo.handlers.HelperFunctions;
+import com.lambdaschool.apollo.models.Survey;
+import com.lambdaschool.apollo.models.Topic;
+import com.lambdaschool.apollo.models.User;
+import com.lambdaschool.apollo.repository.TopicRepository;
+import com.lambdaschool.apollo.services.AnswerService;
+import com.lambdaschool.apollo.services.SurveyService;
+import com.lambdaschool.apollo.services.TopicService;
+import com.lambdaschool.apollo.services.UserService;
+import com.lambdaschool.apollo.views.QuestionBody;
+import com.lambdaschool.apollo.views.QuestionType;
+import com.lambdaschool.apollo.views.SurveyQuestion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service layer hot paths against the embedded H2 database, see BenchmarkContext for the data set.
+ * <p>
+ * Run with: mvn -P benchmarks test-compile exec:exec -Dbench=ServiceBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceBenchmark {
+    private ConfigurableApplicationContext ctx;
+
+    private HelperFunctions helperFunctions;
+    private TopicService topicService;
+    private SurveyService surveyService;
+    private AnswerService answerService;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate tx;
+
+    private User member;
+    private long topicid;
+    private List<Survey> requests;
+    private List<SurveyQuestion> requestQuestions;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ctx = BenchmarkContext.start();
+        helperFunctions = ctx.getBean(HelperFunctions.class);
+        topicService = ctx.getBean(TopicService.class);
+        surveyService = ctx.getBean(SurveyService.class);
+        answerService = ctx.getBean(AnswerService.class);
+        jdbcTemplate = ctx.getBean(JdbcTemplate.class);
+        tx = new TransactionTemplate(ctx.getBean(PlatformTransactionManager.class));
+
+        member = ctx.getBean(UserService.class).findByName("user1");
+        topicid = ctx.getBean(TopicRepository.class).findTopicIdByJoincode("bench0");
+        requests = surveyService.findLatestRequests(topicid, BenchmarkContext.REQUESTS);
+
+        SurveyQuestion leader = new SurveyQuestion("How was the week?", QuestionType.TEXT, true);
+        leader.setAnswer("Busy");
+        requestQuestions = Arrays.asList(leader,
+                new SurveyQuestion("What did you ship?", QuestionType.TEXT, false),
+                new SurveyQuestion("Any blockers?", QuestionType.TEXT, false));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ctx.close();
+    }
+
+    @Benchmark
+    public List<Survey> hasResponded() {
+        helperFunctions.hasResponded(requests, member);
+        return requests;
+    }
+
+    @Benchmark
+    public List<Topic> findTopicsByUser() {
+        return topicService.findTopicsByUser("user1");
+    }
+
+    @Benchmark
+    public Survey saveRequest() {
+        return tx.execute(status -> surveyService.saveRequest(requestQuestions, topicService.findTopicById(topicid)));
+    }
+
+    /**
+     * Answers the same question every time; the answer is removed again after each invocation
+     */
+    @State(Scope.Thread)
+    public static class AnswerState {
+        final QuestionBody body = new QuestionBody("benchmark answer", 31);
+
+        @TearDown(Level.Invocation)
+        public void removeAnswer(ServiceBenchmark benchmark) {
+            benchmark.jdbcTemplate.update("DELETE FROM answers WHERE questionid = ? AND userid = ?",
+                    body.getQuestionid(), benchmark.member.getUserid());
+        }
+    }
+
+    @Benchmark
+    public void answerSave(AnswerState state) {
+        answerService.save(state.body, member);
+    }
+}
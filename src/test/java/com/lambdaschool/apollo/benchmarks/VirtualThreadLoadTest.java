@@ -0,0 +1,201 @@
+package com.lambdaschool.apollo.benchmarks;
+
+import com.lambdaschool.apollo.ApolloApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares request handling on Tomcat's 200 platform threads with apollo.virtual-threads.enabled=true at high
+ * concurrency. Each mode runs the application in a JVM of its own with the same heap and a pool of
+ * apollo.loadtest.pool-size connections, and this JVM keeps apollo.loadtest.concurrency requests to
+ * LoadTestController.slow in flight for apollo.loadtest.seconds after a warmup. Each request waits
+ * apollo.loadtest.query-ms in a PostgreSQL query. Prints throughput, latency, peak heap and peak platform threads
+ * of each mode.
+ * <p>
+ * With a driver that pins carrier threads while it waits on its socket, the virtual thread mode runs no more queries
+ * at once than there are cores, and falls behind the thread pool here.
+ * <p>
+ * Needs a Java 21 runtime for the virtual thread mode, and a PostgreSQL database in MYDBHOST, MYDBNAME, MYDBUSER and
+ * MYDBPASSWORD whose tables the test data set replaces, so never point it at a database that matters.
+ * Run with: mvn -P loadtest test-compile exec:exec [-Dapollo.loadtest.concurrency=2000]
+ */
+public class VirtualThreadLoadTest {
+    private static final int CONCURRENCY = Integer.getInteger("apollo.loadtest.concurrency", 2000);
+    private static final int SECONDS = Integer.getInteger("apollo.loadtest.seconds", 30);
+    private static final int WARMUP_SECONDS = Integer.getInteger("apollo.loadtest.warmup-seconds", 10);
+    private static final int QUERY_MS = Integer.getInteger("apollo.loadtest.query-ms", 200);
+    private static final int POOL_SIZE = Integer.getInteger("apollo.loadtest.pool-size", 80);
+    private static final String HEAP = System.getProperty("apollo.loadtest.heap", "512m");
+    private static final int PORT = Integer.getInteger("apollo.loadtest.port", 2029);
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(30)).build();
+    private final String base = "http://localhost:" + PORT + "/loadtest";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("server")) {
+            new SpringApplicationBuilder(ApolloApplication.class)
+                    .properties("h2.tcp.enabled=false",
+                            "h2.web.enabled=false",
+                            "spring.h2.console.enabled=false",
+                            "logging.level.root=WARN")
+                    .run(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
+        for (String envvar : Arrays.asList("MYDBHOST", "MYDBNAME", "MYDBUSER", "MYDBPASSWORD")) {
+            if (System.getenv(envvar) == null) {
+                System.err.println("Set " + envvar + ", the load test runs its queries on a scratch PostgreSQL database");
+                System.exit(1);
+            }
+        }
+
+        VirtualThreadLoadTest test = new VirtualThreadLoadTest();
+        List<String> results = new ArrayList<>();
+        results.add(test.run(false));
+        results.add(test.run(true));
+
+        System.out.println();
+        System.out.printf("%d concurrent clients, %d ms query per request, %d connections, %s heap, %d s%n",
+                CONCURRENCY, QUERY_MS, POOL_SIZE, HEAP, SECONDS);
+        System.out.printf("%-10s %10s %10s %10s %10s %12s %12s%n",
+                "mode", "req/s", "p50 ms", "p99 ms", "errors", "peak heap MB", "peak threads");
+        results.forEach(System.out::println);
+    }
+
+    private String run(boolean virtual) throws Exception {
+        String mode = virtual ? "virtual" : "platform";
+        Process server = new ProcessBuilder(
+                new File(System.getProperty("java.home"), "bin/java").getPath(),
+                "-Xms" + HEAP, "-Xmx" + HEAP,
+                "-cp", System.getProperty("java.class.path"),
+                VirtualThreadLoadTest.class.getName(), "server",
+                "--server.port=" + PORT,
+                "--spring.profiles.active=SECURITY_MOCK,LOADTEST",
+                "--local.run.db=POSTGRESQL",
+                "--spring.datasource.hikari.maximum-pool-size=" + POOL_SIZE,
+                "--spring.datasource.hikari.leak-detection-threshold=0",
+                "--apollo.virtual-threads.enabled=" + virtual,
+                "--server.tomcat.max-connections=" + (CONCURRENCY * 2))
+                .inheritIO()
+                .start();
+        try {
+            awaitStarted(server);
+            load(WARMUP_SECONDS);
+            send(HttpRequest.newBuilder(URI.create(base + "/reset")).POST(HttpRequest.BodyPublishers.noBody()).build());
+            Result result = load(SECONDS);
+            String stats = send(HttpRequest.newBuilder(URI.create(base + "/stats")).build());
+            return String.format("%-10s %10.0f %10d %10d %10d %12s %12s", mode, result.count / (double) SECONDS,
+                    result.percentile(50), result.percentile(99), result.errors,
+                    field(stats, "peakheapmb"), field(stats, "peakthreads"));
+        } catch (IOException e) {
+            return String.format("%-10s failed: %s", mode, e.getMessage());
+        } finally {
+            server.destroy();
+            server.waitFor();
+        }
+    }
+
+    private void awaitStarted(Process server) throws IOException, InterruptedException {
+        HttpRequest ping = HttpRequest.newBuilder(URI.create(base + "/slow?queryms=0")).build();
+        for (int i = 0; i < 120; i++) {
+            if (!server.isAlive()) {
+                throw new IOException("server exited with " + server.exitValue());
+            }
+            try {
+                send(ping);
+                return;
+            } catch (IOException e) {
+                Thread.sleep(1000);
+            }
+        }
+        throw new IOException("server did not start");
+    }
+
+    /**
+     * Keeps CONCURRENCY requests in flight, each client sending its next request when the last one returns
+     */
+    private Result load(int seconds) {
+        Result result = new Result();
+        long end = System.nanoTime() + seconds * 1_000_000_000L;
+        HttpRequest request = HttpRequest.newBuilder(URI.create(base + "/slow?queryms=" + QUERY_MS))
+                .timeout(Duration.ofSeconds(120))
+                .build();
+        List<CompletableFuture<Void>> clients = new ArrayList<>();
+        for (int i = 0; i < CONCURRENCY; i++) {
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            next(request, end, result, done);
+            clients.add(done);
+        }
+        CompletableFuture.allOf(clients.toArray(new CompletableFuture[0])).join();
+        return result;
+    }
+
+    private void next(HttpRequest request, long end, Result result, CompletableFuture<Void> done) {
+        if (System.nanoTime() >= end) {
+            done.complete(null);
+            return;
+        }
+        long started = System.nanoTime();
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenCompleteAsync((response, e) -> {
+            if (e != null || response.statusCode() != 200) {
+                result.errors.incrementAndGet();
+            } else {
+                result.add((System.nanoTime() - started) / 1_000_000);
+            }
+            next(request, end, result, done);
+        });
+    }
+
+    private String send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IOException(request.uri() + " returned " + response.statusCode());
+        }
+        return response.body();
+    }
+
+    /**
+     * Reads a number out of the flat JSON of LoadTestController.stats
+     */
+    private static String field(String json, String name) {
+        int start = json.indexOf("\"" + name + "\":") + name.length() + 3;
+        int end = start;
+        while (end < json.length() && Character.isDigit(json.charAt(end))) {
+            end++;
+        }
+        return json.substring(start, end);
+    }
+
+    private static class Result {
+        private final List<Long> latencies = new ArrayList<>();
+        final AtomicLong errors = new AtomicLong();
+        long count;
+
+        synchronized void add(long ms) {
+            latencies.add(ms);
+            count++;
+        }
+
+        synchronized long percentile(int p) {
+            if (latencies.isEmpty()) {
+                return 0;
+            }
+            List<Long> sorted = new ArrayList<>(latencies);
+            Collections.sort(sorted);
+            return sorted.get(Math.min(sorted.size() - 1, sorted.size() * p / 100));
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.lambdaschool.apollo.config;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Two in memory H2 databases stand in for the primary and the replica; each knows its own name.
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class ReadWriteRoutingDataSourceTest {
+    private final AtomicBoolean replicaAvailable = new AtomicBoolean(true);
+
+    private DataSource replica;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+
+    @Before
+    public void setUp() {
+        DataSource primary = database("routing_primary");
+        replica = database("routing_replica");
+
+        DataSource routing = new LazyConnectionDataSourceProxy(
+                new ReadWriteRoutingDataSource(primary, replica, replicaAvailable::get));
+        jdbcTemplate = new JdbcTemplate(routing);
+
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routing);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readWrite = new TransactionTemplate(transactionManager);
+    }
+
+    private static DataSource database(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE IF NOT EXISTS node(name VARCHAR(20))");
+        jdbc.execute("DELETE FROM node");
+        jdbc.update("INSERT INTO node(name) VALUES (?)", name);
+        return dataSource;
+    }
+
+    private String node() {
+        return jdbcTemplate.queryForObject("SELECT name FROM node", String.class);
+    }
+
+    @Test
+    public void a_readOnlyGoesToReplica() {
+        assertEquals("routing_replica", readOnly.execute(status -> node()));
+    }
+
+    @Test
+    public void b_readWriteGoesToPrimary() {
+        assertEquals("routing_primary", readWrite.execute(status -> node()));
+    }
+
+    @Test
+    public void c_noTransactionGoesToPrimary() {
+        assertEquals("routing_primary", node());
+    }
+
+    @Test
+    public void d_readOnlyFallsBackWhenReplicaUnavailable() {
+        replicaAvailable.set(false);
+        assertEquals("routing_primary", readOnly.execute(status -> node()));
+    }
+
+    @Test
+    public void e_monitorChecksLag() {
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(replica, "SELECT 200", 1000);
+        monitor.check();
+        assertTrue(monitor.isAvailable());
+        assertEquals(200, monitor.getLagMs());
+
+        monitor = new ReplicaLagMonitor(replica, "SELECT 5000", 1000);
+        monitor.check();
+        assertFalse(monitor.isAvailable());
+
+        monitor = new ReplicaLagMonitor(replica, "SELECT lag FROM no_such_table", 1000);
+        monitor.check();
+        assertFalse(monitor.isAvailable());
+        assertEquals(-1, monitor.getLagMs());
+    }
+}
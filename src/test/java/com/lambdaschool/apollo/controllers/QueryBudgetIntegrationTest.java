@@ -0,0 +1,216 @@
+package com.lambdaschool.apollo.controllers;
+
+import com.lambdaschool.apollo.ApolloApplication;
+import com.lambdaschool.apollo.services.UserService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.context.transaction.BeforeTransaction;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.sql.Timestamp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs each endpoint against the seed data and again after growing the data set, and checks that the number of
+ * SQL statements (the X-Query-Count header from QueryMetricsFilter) stays the same and within a fixed budget.
+ * <p>
+ * Every test runs in a transaction that is rolled back, so the extra rows never reach the other tests.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, classes = ApolloApplication.class)
+@AutoConfigureMockMvc
+@WithMockUser(username = "admin", roles = {"USER", "ADMIN"})
+@Transactional
+public class QueryBudgetIntegrationTest {
+    private static final long ADMIN = 4;
+    private static final long TOPIC = 10;
+
+    /**
+     * Rows added by grow() use ids from here up so they never meet the sequence
+     */
+    private long nextId = 1_000_000;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private UserService userService;
+
+    @BeforeTransaction
+    public void setUp() {
+        // the principal lookup is cached once it commits, warm it outside the test's transaction
+        // so it does not count against the first request
+        userService.findPrincipal("admin");
+    }
+
+    @Test
+    public void listUserTopics() throws Exception {
+        long small = queries(get("/topics/topics"));
+        grow();
+        long large = queries(get("/topics/topics"));
+        assertBudget(4, small, large);
+    }
+
+    @Test
+    public void getTopicById() throws Exception {
+        long small = queries(get("/topics/topic/" + TOPIC));
+        grow();
+        long large = queries(get("/topics/topic/" + TOPIC));
+        assertBudget(8, small, large);
+    }
+
+    @Test
+    public void listAllSurveys() throws Exception {
+        long small = queries(get("/surveys/all"));
+        grow();
+        long large = queries(get("/surveys/all"));
+        assertBudget(8, small, large);
+    }
+
+    @Test
+    public void createNewResponse() throws Exception {
+        long small = queries(respond(request(TOPIC, 2)));
+        grow();
+        long large = queries(respond(request(TOPIC, 20)));
+        assertBudget(4, small, large);
+    }
+
+    @Test
+    public void getResponses() throws Exception {
+        long[] smallRequest = requestWithAnswers(TOPIC, 1, 2);
+        long small = queries(get("/surveys/survey/" + smallRequest[0] + "/responses"));
+        long[] largeRequest = requestWithAnswers(TOPIC, 10, 20);
+        long large = queries(get("/surveys/survey/" + largeRequest[0] + "/responses"));
+        assertBudget(6, small, large);
+    }
+
+    private static void assertBudget(long budget, long small, long large) {
+        assertTrue("small data set used " + small + " statements, budget is " + budget, small <= budget);
+        assertTrue("large data set used " + large + " statements, budget is " + budget, large <= budget);
+        assertEquals("statement count grew with the data set", small, large);
+    }
+
+    /**
+     * Performs the request with an empty persistence context and returns the number of SQL statements it ran
+     */
+    private long queries(RequestBuilder request) throws Exception {
+        entityManager.flush();
+        entityManager.clear();
+        MvcResult result = mockMvc.perform(request)
+                .andExpect(status().is2xxSuccessful())
+                .andReturn();
+        return Long.parseLong(result.getResponse().getHeader("X-Query-Count"));
+    }
+
+    /**
+     * Answers every question of the given survey request as the topic owner
+     */
+    private RequestBuilder respond(long[] request) {
+        StringBuilder body = new StringBuilder("[");
+        for (int q = 1; q < request.length; q++) {
+            if (q > 1) {
+                body.append(',');
+            }
+            body.append("{\"questionid\":").append(request[q]).append(",\"body\":\"answer ").append(q).append("\"}");
+        }
+        body.append(']');
+        return post("/surveys/response")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body.toString());
+    }
+
+    /**
+     * Adds a survey request with leader questions to the topic
+     *
+     * @return The survey id followed by the question ids
+     */
+    private long[] request(long topicid, int questions) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        long[] ids = new long[questions + 1];
+        ids[0] = nextId++;
+        jdbcTemplate.update("INSERT INTO surveys(surveyid, topicid, created_by, created_date, last_modified_by, last_modified_date) " +
+                "VALUES (?, ?, 'test', ?, 'test', ?)", ids[0], topicid, now, now);
+        for (int q = 1; q <= questions; q++) {
+            ids[q] = nextId++;
+            jdbcTemplate.update("INSERT INTO questions(questionid, body, is_leader, type, surveyid, created_by, created_date, last_modified_by, last_modified_date) " +
+                    "VALUES (?, ?, TRUE, 0, ?, 'test', ?, 'test', ?)", ids[q], "Question " + q, ids[0], now, now);
+        }
+        return ids;
+    }
+
+    /**
+     * Adds a survey request whose questions are answered by the given number of new members
+     *
+     * @return The survey id followed by the question ids
+     */
+    private long[] requestWithAnswers(long topicid, int members, int questions) {
+        long[] request = request(topicid, questions);
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        for (int m = 0; m < members; m++) {
+            long userid = member(topicid);
+            for (int q = 1; q < request.length; q++) {
+                jdbcTemplate.update("INSERT INTO answers(answerid, body, questionid, userid, surveyid, created_by, created_date, last_modified_by, last_modified_date) " +
+                        "VALUES (?, 'answer', ?, ?, ?, 'test', ?, 'test', ?)", nextId++, request[q], userid, request[0], now, now);
+            }
+        }
+        return request;
+    }
+
+    /**
+     * Adds a new user as a member of the topic
+     *
+     * @return The user id of the new member
+     */
+    private long member(long topicid) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        long userid = nextId++;
+        jdbcTemplate.update("INSERT INTO users(userid, username, primaryemail, created_by, created_date, last_modified_by, last_modified_date) " +
+                "VALUES (?, ?, ?, 'test', ?, 'test', ?)", userid, "member" + userid, "member" + userid + "@test.local", now, now);
+        jdbcTemplate.update("INSERT INTO topicusers(topicid, userid, created_by, created_date, last_modified_by, last_modified_date) " +
+                "VALUES (?, ?, 'test', ?, 'test', ?)", topicid, userid, now, now);
+        return userid;
+    }
+
+    /**
+     * Grows the data set: more members and answered requests on the admin's topic, and more topics owned by the admin
+     */
+    private void grow() {
+        for (int r = 0; r < 10; r++) {
+            requestWithAnswers(TOPIC, 5, 3);
+        }
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        for (int t = 0; t < 5; t++) {
+            long surveyid = nextId++;
+            jdbcTemplate.update("INSERT INTO surveys(surveyid, topicid, created_by, created_date, last_modified_by, last_modified_date) " +
+                    "VALUES (?, NULL, 'test', ?, 'test', ?)", surveyid, now, now);
+            long topicid = nextId++;
+            jdbcTemplate.update("INSERT INTO topics(topicid, title, userid, frequency, surveyid, joincode, created_by, created_date, last_modified_by, last_modified_date) " +
+                    "VALUES (?, ?, ?, 0, ?, ?, 'test', ?, 'test', ?)", topicid, "Grown topic " + t, ADMIN, surveyid, "grown" + topicid, now, now);
+            for (int r = 0; r < 3; r++) {
+                requestWithAnswers(topicid, 2, 3);
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.lambdaschool.apollo.handlers;
+
+import com.lambdaschool.apollo.exceptions.ResourceFoundException;
+import com.lambdaschool.apollo.views.AnswerRow;
+import com.lambdaschool.apollo.views.ExportFormat;
+import com.lambdaschool.apollo.views.QuestionType;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Writes two rows, the second with a null answer, and compares the output byte for byte
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class AnswerExportWriterTest {
+    private static final Date REQUESTED = Date.from(Instant.parse("2020-06-15T09:00:00Z"));
+    private static final Date ANSWERED = Date.from(Instant.parse("2020-06-15T10:30:00Z"));
+
+    @Test
+    public void a_csv() throws IOException {
+        assertEquals("surveyid,requestdate,questionid,question,leader,userid,username,answerid,answer,answereddate\r\n"
+                        + "19,2020-06-15T09:00:00Z,31,\"Blockers, if any?\",false,5,user1,40,\"Said \"\"no\"\"\nthen yes\",2020-06-15T10:30:00Z\r\n"
+                        + "19,2020-06-15T09:00:00Z,31,\"Blockers, if any?\",false,6,user2,41,,\r\n",
+                export(ExportFormat.CSV));
+    }
+
+    @Test
+    public void b_ndjson() throws IOException {
+        assertEquals("{\"surveyid\":19,\"requestdate\":\"2020-06-15T09:00:00Z\",\"questionid\":31,"
+                        + "\"question\":\"Blockers, if any?\",\"leader\":false,\"userid\":5,\"username\":\"user1\","
+                        + "\"answerid\":40,\"answer\":\"Said \\\"no\\\"\\nthen yes\",\"answereddate\":\"2020-06-15T10:30:00Z\"}\n"
+                        + "{\"surveyid\":19,\"requestdate\":\"2020-06-15T09:00:00Z\",\"questionid\":31,"
+                        + "\"question\":\"Blockers, if any?\",\"leader\":false,\"userid\":6,\"username\":\"user2\","
+                        + "\"answerid\":41,\"answer\":null,\"answereddate\":null}\n",
+                export(ExportFormat.NDJSON));
+    }
+
+    @Test
+    public void c_formatOf() {
+        assertEquals(ExportFormat.CSV, ExportFormat.of("Csv"));
+        assertEquals(ExportFormat.NDJSON, ExportFormat.of("ndjson"));
+    }
+
+    @Test(expected = ResourceFoundException.class)
+    public void d_formatUnknown() {
+        ExportFormat.of("xlsx");
+    }
+
+    private static String export(ExportFormat format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AnswerExportWriter writer = new AnswerExportWriter(format, out);
+        writer.accept(new Row(5, "user1", 40, "Said \"no\"\nthen yes", ANSWERED));
+        writer.accept(new Row(6, "user2", 41, null, null));
+        writer.flush();
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static class Row implements AnswerRow {
+        private final long userid;
+        private final String username;
+        private final long answerid;
+        private final String answer;
+        private final Date answereddate;
+
+        Row(long userid, String username, long answerid, String answer, Date answereddate) {
+            this.userid = userid;
+            this.username = username;
+            this.answerid = answerid;
+            this.answer = answer;
+            this.answereddate = answereddate;
+        }
+
+        @Override
+        public long getSurveyid() {
+            return 19;
+        }
+
+        @Override
+        public Date getRequestdate() {
+            return REQUESTED;
+        }
+
+        @Override
+        public long getQuestionid() {
+            return 31;
+        }
+
+        @Override
+        public String getQuestion() {
+            return "Blockers, if any?";
+        }
+
+        @Override
+        public QuestionType getType() {
+            return QuestionType.TEXT;
+        }
+
+        @Override
+        public boolean getLeader() {
+            return false;
+        }
+
+        @Override
+        public long getUserid() {
+            return userid;
+        }
+
+        @Override
+        public String getUsername() {
+            return username;
+        }
+
+        @Override
+        public long getAnswerid() {
+            return answerid;
+        }
+
+        @Override
+        public String getAnswer() {
+            return answer;
+        }
+
+        @Override
+        public Date getAnswereddate() {
+            return answereddate;
+        }
+    }
+}
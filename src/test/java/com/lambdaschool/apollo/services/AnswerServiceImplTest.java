@@ -1,8 +1,11 @@
 package com.lambdaschool.apollo.services;
 
 import com.lambdaschool.apollo.ApolloApplication;
+import com.lambdaschool.apollo.exceptions.ResourceFoundException;
+import com.lambdaschool.apollo.exceptions.ResourceNotFoundException;
 import com.lambdaschool.apollo.models.Answer;
 import com.lambdaschool.apollo.models.User;
+import com.lambdaschool.apollo.views.AnswerRow;
 import com.lambdaschool.apollo.views.QuestionBody;
 import org.junit.After;
 import org.junit.Before;
@@ -15,6 +18,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 
@@ -73,4 +81,38 @@ public class AnswerServiceImplTest {
     public void g_findByQuestionIdAndUserId() {
         assertEquals("test answer 1", answerService.findByQuestionIdAndUserId(29, 4).getBody());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void h_findRespondedSurveyIds() {
+        assertEquals(Collections.singleton(9L), answerService.findRespondedSurveyIds(Arrays.asList(9L, 11L), 4));
+    }
+
+    @Test(expected = ResourceFoundException.class)
+    public void i_saveAllDuplicateQuestion() {
+        User u = userService.findUserById(5);
+        answerService.saveAll(Arrays.asList(new QuestionBody("a", 31), new QuestionBody("b", 31)), u);
+    }
+
+    @Test(expected = ResourceNotFoundException.class)
+    public void j_saveAllNotARequest() {
+        User u = userService.findUserById(5);
+        answerService.saveAll(Collections.singletonList(new QuestionBody("a", 31)), u);
+    }
+
+    @Test(expected = ResourceFoundException.class)
+    public void k_saveAlreadyAnswered() {
+        User u = userService.findUserById(4);
+        answerService.save(new QuestionBody("test answer again", 29), u);
+    }
+
+    @Test
+    public void l_exportBySurveyId() {
+        List<AnswerRow> rows = new ArrayList<>();
+        answerService.exportBySurveyId(9, rows::add);
+        assertEquals(2, rows.size());
+        assertEquals(34, rows.get(0).getAnswerid());
+        assertEquals("test answer 1", rows.get(0).getAnswer());
+        assertEquals(29, rows.get(0).getQuestionid());
+        assertEquals(4, rows.get(0).getUserid());
+    }
+}
@@ -0,0 +1,93 @@
+package com.lambdaschool.apollo.services;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class JoinCodeGeneratorTest {
+
+    @Test
+    public void a_nextIdIncreasing() {
+        JoinCodeGenerator generator = new JoinCodeGenerator("", 3);
+        long prev = generator.nextId();
+        // more ids than fit in one millisecond's sequence
+        for (int i = 0; i < 10000; i++) {
+            long id = generator.nextId();
+            assertTrue(id > prev);
+            assertEquals(3, (id >>> JoinCodeGenerator.SEQUENCE_BITS) & JoinCodeGenerator.MAX_NODE);
+            assertTrue(id < (1L << 53));
+            prev = id;
+        }
+    }
+
+    @Test
+    public void b_nextUniqueAcrossNodes() {
+        JoinCodeGenerator node1 = new JoinCodeGenerator("salt", 1);
+        JoinCodeGenerator node2 = new JoinCodeGenerator("salt", 2);
+        Set<String> codes = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(codes.add(node1.next()));
+            assertTrue(codes.add(node2.next()));
+        }
+        assertNotEquals(node1.next(), node2.next());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void c_nodeOutOfRange() {
+        new JoinCodeGenerator("", 32);
+    }
+
+    @Test
+    public void d_leasedNodes() {
+        // two instances with the same configuration, each leasing the lowest node id still free
+        Map<String, Integer> leases = new HashMap<>();
+        JoinCodeGenerator first = new JoinCodeGenerator("salt", -1, new LeasingInstance("first", leases));
+        JoinCodeGenerator second = new JoinCodeGenerator("salt", -1, new LeasingInstance("second", leases));
+        first.leaseNode();
+        second.leaseNode();
+
+        assertEquals(0, first.node());
+        assertEquals(1, second.node());
+        Set<String> codes = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(codes.add(first.next()));
+            assertTrue(codes.add(second.next()));
+        }
+        assertEquals(2, leases.size());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void e_nodeNotLeased() {
+        new JoinCodeGenerator("salt", -1, new LeasingInstance("first", new HashMap<>())).next();
+    }
+
+    /**
+     * Leases node ids the way LeaseService.claimOne does, without a database
+     */
+    private static class LeasingInstance extends ClusterInstance {
+        private final String id;
+        private final Map<String, Integer> leases;
+
+        LeasingInstance(String id, Map<String, Integer> leases) {
+            this.id = id;
+            this.leases = leases;
+        }
+
+        @Override
+        public void hold(String job, int shards) {
+            leases.computeIfAbsent(id, k -> leases.size());
+        }
+
+        @Override
+        public Integer heldShard(String job) {
+            return leases.get(id);
+        }
+    }
+}
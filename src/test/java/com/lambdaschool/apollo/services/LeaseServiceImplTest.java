@@ -0,0 +1,97 @@
+package com.lambdaschool.apollo.services;
+
+import com.lambdaschool.apollo.ApolloApplication;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.MethodSorters;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Two instances, a and b, share a job of four shards. Each test is rolled back afterwards, except e_claimOne
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = ApolloApplication.class)
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+@Transactional
+public class LeaseServiceImplTest {
+    private static final String JOB = "test-job";
+
+    private static final String ONE_JOB = "test-one-job";
+
+    @Autowired
+    private LeaseService leaseService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void a_claimAlone() {
+        assertEquals(shards(0, 1, 2, 3), leaseService.claim("a", JOB, 4));
+        assertEquals(shards(0, 1, 2, 3), leaseService.claim("a", JOB, 4));
+    }
+
+    @Test
+    public void b_claimShared() {
+        leaseService.claim("a", JOB, 4);
+
+        // nothing is free until a gives up what is above its share
+        assertEquals(shards(), leaseService.claim("b", JOB, 4));
+        assertEquals(shards(0, 1), leaseService.claim("a", JOB, 4));
+        assertEquals(shards(2, 3), leaseService.claim("b", JOB, 4));
+    }
+
+    @Test
+    public void c_claimFromDeadInstance() {
+        leaseService.claim("a", JOB, 4);
+
+        Timestamp past = new Timestamp(System.currentTimeMillis() - 3600000);
+        jdbcTemplate.update("UPDATE appinstances SET heartbeatat = ? WHERE instanceid = 'a'", past);
+        jdbcTemplate.update("UPDATE jobleases SET expiresat = ? WHERE holder = 'a'", past);
+
+        assertEquals(shards(0, 1, 2, 3), leaseService.claim("b", JOB, 4));
+    }
+
+    @Test
+    public void d_leave() {
+        leaseService.claim("a", JOB, 4);
+        leaseService.leave("a");
+
+        assertEquals(shards(0, 1, 2, 3), leaseService.claim("b", JOB, 4));
+    }
+
+    /**
+     * claimOne commits on its own, so this one runs outside the test transaction and cleans up after itself
+     */
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void e_claimOne() {
+        try {
+            assertEquals(Integer.valueOf(0), leaseService.claimOne("a", ONE_JOB, 2));
+            assertEquals(Integer.valueOf(1), leaseService.claimOne("b", ONE_JOB, 2));
+            assertEquals(Integer.valueOf(0), leaseService.claimOne("a", ONE_JOB, 2));
+            assertNull(leaseService.claimOne("c", ONE_JOB, 2));
+        } finally {
+            jdbcTemplate.update("DELETE FROM jobleases WHERE job = ?", ONE_JOB);
+            jdbcTemplate.update("DELETE FROM appinstances WHERE instanceid IN ('a', 'b', 'c')");
+        }
+    }
+
+    private static Set<Integer> shards(Integer... shards) {
+        return shards.length == 0 ? Collections.emptySet() : new HashSet<>(Arrays.asList(shards));
+    }
+}
@@ -0,0 +1,151 @@
+package com.lambdaschool.apollo.services;
+
+import com.lambdaschool.apollo.ApolloApplication;
+import com.lambdaschool.apollo.models.Answer;
+import com.lambdaschool.apollo.models.Question;
+import com.lambdaschool.apollo.models.Survey;
+import com.lambdaschool.apollo.models.User;
+import com.lambdaschool.apollo.repository.AnswerRepository;
+import com.lambdaschool.apollo.repository.QuestionRepository;
+import com.lambdaschool.apollo.repository.SurveyRepository;
+import com.lambdaschool.apollo.repository.UserRepository;
+import com.lambdaschool.apollo.views.BucketSummary;
+import com.lambdaschool.apollo.views.QuestionBody;
+import com.lambdaschool.apollo.views.QuestionSummary;
+import com.lambdaschool.apollo.views.QuestionType;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.MethodSorters;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Each test adds its own question to seeded survey 11 and is rolled back afterwards
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = ApolloApplication.class)
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+@Transactional
+public class QuestionAggregateServiceImplTest {
+    @Autowired
+    private QuestionAggregateService questionAggregateService;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private SurveyRepository surveyRepository;
+
+    @Autowired
+    private AnswerRepository answerRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    public void a_recordRating() {
+        Question q = question(QuestionType.RATING);
+        record(q, "4", "5", " 4 ", "great");
+
+        QuestionSummary summary = summary(q);
+        assertEquals(4, summary.getCount());
+        assertEquals(13.0, summary.getSum(), 0);
+        assertEquals(4.0, summary.getMin(), 0);
+        assertEquals(5.0, summary.getMax(), 0);
+        assertEquals(13.0 / 3, summary.getMean(), 0.0001);
+        assertBuckets(summary, "4", 2, "5", 1);
+    }
+
+    @Test
+    public void b_recordBool() {
+        Question q = question(QuestionType.BOOL);
+        record(q, "yes", "false");
+        record(q, "0", "maybe");
+
+        QuestionSummary summary = summary(q);
+        assertEquals(4, summary.getCount());
+        assertEquals(1.0, summary.getSum(), 0);
+        assertBuckets(summary, "false", 2, "true", 1);
+    }
+
+    @Test
+    public void c_recordMultiple() {
+        Question q = question(QuestionType.MULTIPLE);
+        record(q, "Red", "Blue", "Red");
+
+        QuestionSummary summary = summary(q);
+        assertEquals(3, summary.getCount());
+        assertNull(summary.getMean());
+        assertBuckets(summary, "Blue", 1, "Red", 2);
+    }
+
+    @Test
+    public void d_recordTextIsSkipped() {
+        Question q = question(QuestionType.TEXT);
+        record(q, "anything");
+
+        QuestionSummary summary = summary(q);
+        assertEquals(0, summary.getCount());
+        assertEquals(0, summary.getBuckets().size());
+    }
+
+    @Test
+    public void e_rebuild() {
+        Question q = question(QuestionType.RATING);
+        record(q, "1", "1", "1");
+
+        Survey survey = surveyRepository.findById(11L).orElseThrow(IllegalStateException::new);
+        User user = userRepository.findById(5L).orElseThrow(IllegalStateException::new);
+        answerRepository.save(new Answer("3", q, user, survey));
+        questionAggregateService.rebuild(11);
+
+        QuestionSummary summary = summary(q);
+        assertEquals(1, summary.getCount());
+        assertEquals(3.0, summary.getMax(), 0);
+        assertBuckets(summary, "3", 1);
+    }
+
+    private Question question(QuestionType type) {
+        Survey survey = surveyRepository.findById(11L).orElseThrow(IllegalStateException::new);
+        return questionRepository.save(new Question("Aggregated question", false, type, survey));
+    }
+
+    private void record(Question q, String... bodies) {
+        List<QuestionBody> answers = new ArrayList<>();
+        for (String body : bodies) {
+            answers.add(new QuestionBody(body, q.getQuestionid()));
+        }
+        Map<Long, Question> questions = Collections.singletonMap(q.getQuestionid(), q);
+        questionAggregateService.lock(answers, questions);
+        questionAggregateService.record(answers, questions);
+    }
+
+    private QuestionSummary summary(Question q) {
+        for (QuestionSummary summary : questionAggregateService.findSummary(11).getQuestions()) {
+            if (summary.getQuestionid() == q.getQuestionid()) {
+                return summary;
+            }
+        }
+        throw new AssertionError("Question " + q.getQuestionid() + " missing from summary");
+    }
+
+    private static void assertBuckets(QuestionSummary summary, Object... labelsAndCounts) {
+        List<BucketSummary> buckets = summary.getBuckets();
+        assertEquals(labelsAndCounts.length / 2, buckets.size());
+        for (int i = 0; i < buckets.size(); i++) {
+            assertEquals(labelsAndCounts[2 * i], buckets.get(i).getLabel());
+            assertEquals(((Integer) labelsAndCounts[2 * i + 1]).longValue(), buckets.get(i).getCount());
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.lambdaschool.apollo.services;
+
+import com.lambdaschool.apollo.ApolloApplication;
+import com.lambdaschool.apollo.models.Question;
+import com.lambdaschool.apollo.models.QuestionTemplate;
+import com.lambdaschool.apollo.models.Survey;
+import com.lambdaschool.apollo.views.QuestionType;
+import com.lambdaschool.apollo.views.SurveyQuestion;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.MethodSorters;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Each test is rolled back afterwards
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = ApolloApplication.class)
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+@Transactional
+public class QuestionTemplateServiceImplTest {
+
+    @Autowired
+    private QuestionTemplateService questionTemplateService;
+
+    @Autowired
+    private SurveyService surveyService;
+
+    @Autowired
+    private TopicService topicService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    public void a_intern() {
+        List<QuestionTemplate> templates = questionTemplateService.intern(Arrays.asList(
+                new QuestionTemplate("How was the week?", QuestionType.RATING),
+                new QuestionTemplate("How was the week?", QuestionType.RATING),
+                new QuestionTemplate("How was the week?", QuestionType.TEXT)));
+
+        assertEquals(templates.get(0).getTemplateid(), templates.get(1).getTemplateid());
+        assertNotEquals(templates.get(0).getTemplateid(), templates.get(2).getTemplateid());
+
+        List<QuestionTemplate> again = questionTemplateService.intern(Collections.singletonList(
+                new QuestionTemplate("How was the week?", QuestionType.TEXT)));
+        assertEquals(templates.get(2).getTemplateid(), again.get(0).getTemplateid());
+    }
+
+    @Test
+    public void b_requestsShareTemplates() {
+        List<SurveyQuestion> questions = Collections.singletonList(new SurveyQuestion("Any blockers?", QuestionType.TEXT, false));
+        Survey first = surveyService.saveRequest(questions, topicService.findTopicById(10));
+        Survey second = surveyService.saveRequest(questions, topicService.findTopicById(10));
+
+        Question q1 = first.getQuestions().get(0);
+        Question q2 = second.getQuestions().get(0);
+        assertEquals(q1.getTemplate().getTemplateid(), q2.getTemplate().getTemplateid());
+        assertEquals("Any blockers?", q2.getBody());
+        entityManager.flush();
+        assertNull(jdbcTemplate.queryForObject("SELECT body FROM questions WHERE questionid = ?", String.class, q2.getQuestionid()));
+    }
+}
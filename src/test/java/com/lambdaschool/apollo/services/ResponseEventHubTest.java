@@ -0,0 +1,141 @@
+package com.lambdaschool.apollo.services;
+
+import com.lambdaschool.apollo.views.ResponseEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Streams with a buffer of four events, whose sends block until the test lets them through
+ */
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class ResponseEventHubTest {
+    private ResponseEventHub hub;
+
+    @Before
+    public void setUp() {
+        hub = new ResponseEventHub();
+        ReflectionTestUtils.setField(hub, "bufferSize", 4);
+        ReflectionTestUtils.setField(hub, "timeoutMs", 60000L);
+        ReflectionTestUtils.setField(hub, "threads", 2);
+        ReflectionTestUtils.setField(hub, "sendTimeoutMs", 50L);
+        hub.start();
+    }
+
+    @After
+    public void tearDown() {
+        hub.stop();
+    }
+
+    @Test
+    public void a_dropOldest() throws Exception {
+        RecordingEmitter emitter = new RecordingEmitter(true);
+        hub.subscribe(1, emitter);
+
+        // the first event is being sent, the next six go to the buffer, which keeps the last four
+        hub.publish(event(1, 1));
+        assertTrue(emitter.sending.await(5, TimeUnit.SECONDS));
+        for (int i = 2; i <= 7; i++) {
+            hub.publish(event(1, i));
+        }
+        emitter.gate.countDown();
+
+        assertEquals(Arrays.asList("response 1", "dropped 2", "response 4", "response 5", "response 6", "response 7"),
+                emitter.await(6));
+    }
+
+    @Test
+    public void b_dropStalled() throws Exception {
+        RecordingEmitter stalled = new RecordingEmitter(true);
+        hub.subscribe(1, stalled);
+        hub.publish(event(1, 1));
+        assertTrue(stalled.sending.await(5, TimeUnit.SECONDS));
+
+        Thread.sleep(100);
+        hub.heartbeat();
+        assertFalse(hub.hasSubscribers(1));
+
+        // both senders could be blocked by now, the pool still has room for another stream
+        RecordingEmitter other = new RecordingEmitter(false);
+        hub.subscribe(2, other);
+        hub.publish(event(2, 1));
+        assertEquals(Collections.singletonList("response 1"), other.await(1));
+
+        hub.publish(event(1, 2));
+        stalled.gate.countDown();
+        assertEquals(Collections.singletonList("response 1"), stalled.await(1));
+    }
+
+    private static ResponseEvent event(long surveyid, int answers) {
+        ResponseEvent event = new ResponseEvent(surveyid);
+        event.setAnswers(answers);
+        return event;
+    }
+
+    /**
+     * Records what is sent as "response [answers]" and "dropped [count]", heartbeats are left out
+     */
+    private static class RecordingEmitter extends SseEmitter {
+        final CountDownLatch sending = new CountDownLatch(1);
+        final CountDownLatch gate;
+        private final List<String> received = new ArrayList<>();
+
+        RecordingEmitter(boolean blocked) {
+            gate = new CountDownLatch(blocked ? 1 : 0);
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            sending.countDown();
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+            String text = "";
+            for (ResponseBodyEmitter.DataWithMediaType part : builder.build()) {
+                Object data = part.getData();
+                if (data instanceof String) {
+                    text = (String) data;
+                } else if (data instanceof ResponseEvent) {
+                    add("response " + ((ResponseEvent) data).getAnswers());
+                } else if (text.contains("event:dropped")) {
+                    add("dropped " + data);
+                }
+            }
+        }
+
+        private synchronized void add(String sent) {
+            received.add(sent);
+            notifyAll();
+        }
+
+        synchronized List<String> await(int count) throws InterruptedException {
+            long end = System.currentTimeMillis() + 5000;
+            while (received.size() < count && System.currentTimeMillis() < end) {
+                wait(100);
+            }
+            // anything sent after the expected events shows up as a failed assertion
+            wait(50);
+            return new ArrayList<>(received);
+        }
+    }
+}
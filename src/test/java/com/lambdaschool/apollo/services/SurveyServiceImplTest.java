@@ -0,0 +1,86 @@
+package com.lambdaschool.apollo.services;
+
+import com.lambdaschool.apollo.ApolloApplication;
+import com.lambdaschool.apollo.views.TopicFrequency;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.MethodSorters;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Schedules seeded topic 10, whose default survey is 9, and is rolled back afterwards
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = ApolloApplication.class)
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+@Transactional
+public class SurveyServiceImplTest {
+
+    @Autowired
+    private SurveyService surveyService;
+
+    @Autowired
+    private RequestSchedule requestSchedule;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void a_saveScheduledRequests() {
+        Date now = new Date();
+        makeDue(now);
+        // other test classes add questions to survey 9, count them rather than assume the seeded three
+        Integer questions = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM questions WHERE surveyid = 9", Integer.class);
+
+        assertEquals(1, surveyService.saveScheduledRequests(Collections.singletonList(10L), now));
+
+        Long surveyid = jdbcTemplate.queryForObject(
+                "SELECT surveyid FROM surveys WHERE topicid = 10 AND requestperiod IS NOT NULL", Long.class);
+        assertEquals(questions, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM questions WHERE surveyid = ?", Integer.class, surveyid));
+        Timestamp next = jdbcTemplate.queryForObject(
+                "SELECT nextrequestdate FROM topics WHERE topicid = 10", Timestamp.class);
+        assertTrue(next.after(now));
+    }
+
+    @Test
+    public void b_saveScheduledRequestsOnce() {
+        Date now = new Date();
+        makeDue(now);
+
+        assertEquals(1, surveyService.saveScheduledRequests(Collections.singletonList(10L), now));
+        assertEquals(0, surveyService.saveScheduledRequests(Collections.singletonList(10L), now));
+    }
+
+    @Test
+    public void c_nextDue() {
+        // a Wednesday
+        Date wednesday = Date.from(Instant.parse("2020-06-10T10:00:00Z"));
+        assertEquals(Date.from(Instant.parse("2020-06-15T09:00:00Z")), requestSchedule.nextDue(TopicFrequency.WEEKLY, wednesday));
+        assertEquals(Date.from(Instant.parse("2020-06-12T09:00:00Z")), requestSchedule.nextDue(TopicFrequency.FRIDAY, wednesday));
+        assertEquals(Date.from(Instant.parse("2020-06-11T09:00:00Z")), requestSchedule.nextDue(TopicFrequency.DAILY, wednesday));
+        assertEquals(Date.from(Instant.parse("2020-07-01T09:00:00Z")), requestSchedule.nextDue(TopicFrequency.MONTHLY, wednesday));
+
+        Date firstOfMonth = Date.from(Instant.parse("2020-07-01T08:00:00Z"));
+        assertEquals(Date.from(Instant.parse("2020-07-01T09:00:00Z")), requestSchedule.nextDue(TopicFrequency.MONTHLY, firstOfMonth));
+    }
+
+    private void makeDue(Date now) {
+        jdbcTemplate.update("UPDATE topics SET frequency = ?, nextrequestdate = ? WHERE topicid = 10",
+                TopicFrequency.DAILY.ordinal(), new Timestamp(now.getTime() - 3600000));
+    }
+}
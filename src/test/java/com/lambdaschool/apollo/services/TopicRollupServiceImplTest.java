@@ -0,0 +1,117 @@
+package com.lambdaschool.apollo.services;
+
+import com.lambdaschool.apollo.ApolloApplication;
+import com.lambdaschool.apollo.models.Answer;
+import com.lambdaschool.apollo.models.Question;
+import com.lambdaschool.apollo.models.Survey;
+import com.lambdaschool.apollo.repository.AnswerRepository;
+import com.lambdaschool.apollo.repository.QuestionRepository;
+import com.lambdaschool.apollo.repository.SurveyRepository;
+import com.lambdaschool.apollo.repository.UserRepository;
+import com.lambdaschool.apollo.views.QuestionBody;
+import com.lambdaschool.apollo.views.QuestionTrend;
+import com.lambdaschool.apollo.views.QuestionType;
+import com.lambdaschool.apollo.views.RollupGranularity;
+import com.lambdaschool.apollo.views.TopicTrends;
+import com.lambdaschool.apollo.views.TrendPoint;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.MethodSorters;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Each test adds its own question to seeded survey request 19 of topic 12 and is rolled back afterwards
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = ApolloApplication.class)
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+@Transactional
+public class TopicRollupServiceImplTest {
+    private static final LocalDate TODAY = LocalDate.now(ZoneOffset.UTC);
+
+    @Autowired
+    private TopicRollupService topicRollupService;
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private SurveyRepository surveyRepository;
+
+    @Autowired
+    private AnswerRepository answerRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    public void a_recordEveryGranularity() {
+        Question q = question(QuestionType.RATING);
+        topicRollupService.record(Arrays.asList(new QuestionBody("4", q.getQuestionid()), new QuestionBody("2", q.getQuestionid())),
+                Collections.singletonMap(q.getQuestionid(), q));
+
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            TrendPoint point = onlyPoint(granularity);
+            assertEquals(granularity.periodStart(TODAY), point.getPeriodstart());
+            assertEquals(2, point.getCount());
+            assertEquals(3.0, point.getMean(), 0);
+            assertEquals(2.0, point.getMin(), 0);
+            assertEquals(4.0, point.getMax(), 0);
+        }
+    }
+
+    @Test
+    public void b_recordTextIsSkipped() {
+        Question q = question(QuestionType.TEXT);
+        topicRollupService.record(Collections.singletonList(new QuestionBody("anything", q.getQuestionid())),
+                Collections.singletonMap(q.getQuestionid(), q));
+
+        assertEquals(0, trends(RollupGranularity.DAY).getQuestions().size());
+    }
+
+    @Test
+    public void c_rebuild() {
+        Question q = question(QuestionType.BOOL);
+        topicRollupService.record(Collections.singletonList(new QuestionBody("yes", q.getQuestionid())),
+                Collections.singletonMap(q.getQuestionid(), q));
+
+        Survey survey = q.getSurvey();
+        answerRepository.save(new Answer("no", q, userRepository.findById(5L).orElseThrow(IllegalStateException::new), survey));
+        answerRepository.save(new Answer("no", q, userRepository.findById(6L).orElseThrow(IllegalStateException::new), survey));
+        topicRollupService.rebuild(survey.getTopic().getTopicId());
+
+        TrendPoint point = onlyPoint(RollupGranularity.MONTH);
+        assertEquals(2, point.getCount());
+        assertEquals(0.0, point.getMean(), 0);
+    }
+
+    private Question question(QuestionType type) {
+        Survey survey = surveyRepository.findById(19L).orElseThrow(IllegalStateException::new);
+        return questionRepository.save(new Question("Rolled up question", false, type, survey));
+    }
+
+    private TopicTrends trends(RollupGranularity granularity) {
+        long topicid = surveyRepository.findById(19L).orElseThrow(IllegalStateException::new).getTopic().getTopicId();
+        return topicRollupService.findTrends(topicid, granularity, TODAY.minusMonths(1), TODAY.plusDays(1));
+    }
+
+    private TrendPoint onlyPoint(RollupGranularity granularity) {
+        TopicTrends trends = trends(granularity);
+        assertEquals(1, trends.getQuestions().size());
+        QuestionTrend trend = trends.getQuestions().get(0);
+        assertEquals("Rolled up question", trend.getBody());
+        assertEquals(1, trend.getPoints().size());
+        return trend.getPoints().get(0);
+    }
+}
@@ -1,6 +1,16 @@
 package com.lambdaschool.apollo.services;
 
 import com.lambdaschool.apollo.ApolloApplication;
+import com.lambdaschool.apollo.exceptions.ResourceFoundException;
+import com.lambdaschool.apollo.exceptions.ResourceNotFoundException;
+import com.lambdaschool.apollo.models.Question;
+import com.lambdaschool.apollo.models.Survey;
+import com.lambdaschool.apollo.models.Topic;
+import com.lambdaschool.apollo.models.User;
+import com.lambdaschool.apollo.repository.TopicRepository;
+import com.lambdaschool.apollo.views.KeysetPage;
+import com.lambdaschool.apollo.views.QuestionType;
+import com.lambdaschool.apollo.views.TopicFrequency;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.FixMethodOrder;
@@ -11,8 +21,13 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collections;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
 
 @RunWith(SpringRunner.class)
 @SpringBootTest(classes = ApolloApplication.class)
@@ -22,6 +37,9 @@ public class TopicServiceImplTest {
     @Autowired
     private TopicService topicService;
 
+    @Autowired
+    private TopicRepository topicRepository;
+
     @Before
     public void setUp() throws Exception {
         MockitoAnnotations.initMocks(this);
@@ -59,6 +77,46 @@ public class TopicServiceImplTest {
     public void f_save() {
     }
 
+    /**
+     * Rolled back, the seeded topic keeps its members
+     */
+    @Test
+    @Transactional
+    public void fa_saveMembershipDelta() {
+        User owner = new User();
+        owner.setUsername("user1");
+        Survey defaultSurvey = new Survey();
+        defaultSurvey.setSurveyid(11);
+        Topic topic = new Topic("Topic 3", owner, defaultSurvey, TopicFrequency.WEEKLY);
+        topic.setTopicId(12);
+        User member = new User();
+        member.setUserid(6);
+        topic.addUser(member);
+
+        // user 7 is dropped, user 6 is added
+        topicService.save(topic);
+        assertEquals(Collections.singletonList(6L), topicRepository.findMemberUserIds(12));
+    }
+
+    /**
+     * Rolled back, the seeded topic keeps its default survey
+     */
+    @Test
+    @Transactional
+    public void fb_saveNewDefaultSurvey() {
+        User owner = new User();
+        owner.setUsername("admin");
+        Survey defaultSurvey = new Survey();
+        defaultSurvey.addQuestion(new Question("What is new?", false, QuestionType.TEXT, defaultSurvey));
+        Topic topic = new Topic("Topic 2", owner, defaultSurvey, TopicFrequency.MONDAY);
+        topic.setTopicId(10);
+
+        Topic saved = topicService.save(topic);
+        assertNotEquals(9, saved.getDefaultsurvey().getSurveyid());
+        assertEquals(1, saved.getDefaultsurvey().getQuestions().size());
+        assertEquals("What is new?", saved.getDefaultsurvey().getQuestions().get(0).getBody());
+    }
+
     @Test
     public void g_update() {
     }
@@ -70,4 +128,27 @@ public class TopicServiceImplTest {
     @Test
     public void i_addTopicUser() {
     }
-}
\ No newline at end of file
+
+    @Test
+    public void j_findTopicsPage() {
+        KeysetPage<Topic> first = topicService.findTopicsPage(0, 2, null);
+        assertEquals(2, first.getItems().size());
+        assertEquals(Long.valueOf(12), first.getNextcursor());
+
+        KeysetPage<Topic> last = topicService.findTopicsPage(16, 2, null);
+        assertEquals(1, last.getItems().size());
+        assertNull(last.getNextcursor());
+
+        assertEquals(1, topicService.findTopicsPage(0, 50, "topic 3").getItems().size());
+    }
+
+    @Test(expected = ResourceFoundException.class)
+    public void k_joinTopicAlreadyMember() {
+        topicService.joinTopic("topic2joincode", 5);
+    }
+
+    @Test(expected = ResourceNotFoundException.class)
+    public void ka_joinTopicUnknownCode() {
+        topicService.joinTopic("nosuchcode", 5);
+    }
+}
@@ -33,6 +33,9 @@ public class UserServiceImplTest {
     @Autowired
     private RoleService roleService;
 
+    @Autowired
+    private PrincipalCache principalCache;
+
     @Before
     public void setUp() throws Exception {
         MockitoAnnotations.initMocks(this);
@@ -83,6 +86,15 @@ public class UserServiceImplTest {
         assertEquals("okta@okta.com", userService.findByOKTAUserName("okta@okta.com").getPrimaryemail());
     }
 
+    @Test
+    public void fb_findPrincipalCached() {
+        principalCache.clear();
+        long hits = principalCache.stats().hitCount();
+        assertEquals(6, userService.findPrincipal("USER2").getUserid());
+        assertEquals(6, userService.findPrincipal("user2").getUserid());
+        assertEquals(hits + 1, principalCache.stats().hitCount());
+    }
+
     @Test
     public void g_save() {
         User newUser = new User("tiger", "tiger@school.lambda");